@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.Callable;
 
 /**
@@ -41,6 +42,7 @@ public abstract class CommandSupport implements Serializable {
     private transient Map<String, String> env = createEnv();
     private transient ShellFacade shellFacade;
     private transient FileReadFacade fileReadFacade;
+    private transient RunCache runCache;
     private File currentDir = new File(".");
     private String containerName;
 
@@ -52,6 +54,7 @@ public abstract class CommandSupport implements Serializable {
         setShellFacade(parent.getShellFacade());
         setCurrentDir(parent.getCurrentDir());
         setFileReadFacade(parent.getFileReadFacade());
+        setRunCache(parent.getRunCache());
     }
 
 
@@ -170,6 +173,10 @@ public abstract class CommandSupport implements Serializable {
             try {
                 return block.call();
             } catch (Exception e) {
+                PermanentFailureException permanentFailure = PermanentFailureException.find(e);
+                if (permanentFailure != null) {
+                    throw permanentFailure;
+                }
                 lastException = e;
                 getLogger().error(e);
             }
@@ -234,28 +241,61 @@ public abstract class CommandSupport implements Serializable {
      * Waits until the given criteria is true ignoring any exceptions that occur each time
      */
     public boolean waitUntil(long retryTimeout, long maximumTimeout, Callable<Boolean> callable) {
-        long endTime = 0L;
-        if (maximumTimeout > 0) {
-            endTime = System.currentTimeMillis() + maximumTimeout;
-        }
+        return waitUntil(WaitPolicy.fixed(retryTimeout, maximumTimeout), callable);
+    }
+
+    /**
+     * Waits until the given criteria is true checking it as often as the given policy says, ignoring any exceptions
+     * that occur each time except for a {@link PermanentFailureException} which aborts the wait
+     */
+    public boolean waitUntil(WaitPolicy policy, Callable<Boolean> callable) {
+        return waitFor(policy, callable).isSatisfied();
+    }
+
+    /**
+     * Waits until the given criteria is true like {@link #waitUntil(WaitPolicy, Callable)} returning how many
+     * checks were made and how long they took
+     */
+    public WaitStatistics waitFor(WaitPolicy policy, Callable<Boolean> callable) {
+        Random random = new Random();
+        long startTime = System.currentTimeMillis();
+        long endTime = policy.getDeadline(startTime);
+        int attempts = 0;
+        long totalCheckMillis = 0L;
+        long maxCheckMillis = 0L;
         while (true) {
             Boolean value = null;
+            long checkStart = System.currentTimeMillis();
+            attempts++;
             try {
                 value = callable.call();
             } catch (Exception e) {
+                PermanentFailureException permanentFailure = PermanentFailureException.find(e);
+                if (permanentFailure != null) {
+                    error("Giving up waiting for condition after " + attempts + " attempts", permanentFailure);
+                    throw permanentFailure;
+                }
                 error("Failed waiting for condition", e);
             }
+            long now = System.currentTimeMillis();
+            totalCheckMillis += now - checkStart;
+            maxCheckMillis = Math.max(maxCheckMillis, now - checkStart);
             if (value != null && value.booleanValue()) {
-                return true;
+                return new WaitStatistics(true, attempts, now - startTime, totalCheckMillis, maxCheckMillis);
+            }
+            if (endTime > 0L && now > endTime) {
+                error("waitUntil timed out after " + policy.getTimeoutMillis() + " millis and " + attempts + " attempts");
+                return new WaitStatistics(false, attempts, now - startTime, totalCheckMillis, maxCheckMillis);
             }
-            if (endTime > 0L && System.currentTimeMillis() > endTime) {
-                error("waitUntil timed out after " + maximumTimeout + " millis");
-                return false;
+            long delay = policy.getDelayMillis(attempts, random);
+            if (endTime > 0L) {
+                delay = Math.min(delay, Math.max(0L, endTime - now));
             }
             try {
-                Thread.sleep(retryTimeout);
+                Thread.sleep(delay);
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                Thread.currentThread().interrupt();
+                throw new FailedBuildException("Interrupted waiting for condition", e);
             }
         }
     }
@@ -332,6 +372,20 @@ public abstract class CommandSupport implements Serializable {
         this.fileReadFacade = fileReadFacade;
     }
 
+    /**
+     * Returns the cache of state shared by all the steps and commands of the current pipeline run
+     */
+    public RunCache getRunCache() {
+        if (runCache == null) {
+            runCache = new RunCache();
+        }
+        return runCache;
+    }
+
+    public void setRunCache(RunCache runCache) {
+        this.runCache = runCache;
+    }
+
     // Implementation methods
     //-------------------------------------------------------------------------
     @NonCPS
@@ -16,35 +16,50 @@
 package org.jenkinsci.plugins.fabric8;
 
 import com.cloudbees.groovy.cps.NonCPS;
-import io.fabric8.kubernetes.api.KubernetesHelper;
-import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.openshift.client.DefaultOpenShiftClient;
-import io.fabric8.openshift.client.OpenShiftClient;
 import io.fabric8.utils.IOHelpers;
 import io.fabric8.utils.Strings;
 import io.fabric8.utils.XmlUtils;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.jenkinsci.plugins.fabric8.cache.VersionCache;
+import org.jenkinsci.plugins.fabric8.docker.DockerRegistryClient;
+import org.jenkinsci.plugins.fabric8.docker.TagLookup;
+import org.jenkinsci.plugins.fabric8.github.CommentDirectives;
+import org.jenkinsci.plugins.fabric8.github.CommentScanner;
+import org.jenkinsci.plugins.fabric8.github.GitHubClients;
+import org.jenkinsci.plugins.fabric8.github.GitHubRequestScheduler;
+import org.jenkinsci.plugins.fabric8.github.GitHubRequestScheduler.Priority;
+import org.jenkinsci.plugins.fabric8.github.OpenPullRequestIndex;
+import org.jenkinsci.plugins.fabric8.github.PullRequestState;
+import org.jenkinsci.plugins.fabric8.github.PullRequestWatcher;
 import org.jenkinsci.plugins.fabric8.helpers.DomUtils;
+import org.jenkinsci.plugins.fabric8.kubernetes.ClusterCapabilities;
+import org.jenkinsci.plugins.fabric8.kubernetes.ServiceIndex;
+import org.jenkinsci.plugins.fabric8.kubernetes.ServiceURLResolver;
 import org.jenkinsci.plugins.fabric8.model.ServiceConstants;
+import org.jenkinsci.plugins.fabric8.repository.ArtifactProbe;
+import org.jenkinsci.plugins.fabric8.repository.MavenMetadata;
+import org.jenkinsci.plugins.fabric8.repository.MavenMetadataCache;
+import org.jenkinsci.plugins.fabric8.repository.ProbeResult;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHIssueComment;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
-import org.kohsuke.github.GitHubBuilder;
 import org.w3c.dom.Document;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -54,6 +69,7 @@ import static org.jenkinsci.plugins.fabric8.Utils.defaultNamespace;
 
 public class Fabric8Commands extends CommandSupport {
     private static final long serialVersionUID = 1L;
+    public static final long DEFAULT_COMMIT_STATUS_TIMEOUT_MILLIS = TimeUnit.HOURS.toMillis(2);
 
     private boolean debugSemVerReleaseVersion = false;
 
@@ -76,29 +92,23 @@ public class Fabric8Commands extends CommandSupport {
         return createGitHub(null);
     }
 
+    /**
+     * Returns the shared GitHub client for the current credentials; callers must not assume a new instance
+     */
     public GitHub createGitHub(String githubToken) {
         String user = getenv(EnvironmentVariableNames.GITHUB_USER);
         String password = getenv(EnvironmentVariableNames.GITHUB_PASSWORD);
-        final GitHubBuilder ghb = new GitHubBuilder();
         if (Strings.isNullOrBlank(githubToken)) {
             githubToken = getenv(EnvironmentVariableNames.GITHUB_TOKEN);
         }
-        if (Strings.isNotBlank(user) && Strings.isNotBlank(password)) {
-            ghb.withPassword(user, password);
-        } else {
+        if (Strings.isNullOrBlank(user) || Strings.isNullOrBlank(password)) {
+            password = null;
             if (Strings.isNullOrBlank(githubToken)) {
                 githubToken = loadDefaultGithubToken();
             }
-            if (Strings.notEmpty(githubToken)) {
-                if (Strings.notEmpty(user)) {
-                    ghb.withOAuthToken(user, githubToken);
-                } else {
-                    ghb.withOAuthToken(githubToken);
-                }
-            }
         }
         try {
-            return ghb.build();
+            return GitHubClients.getInstance().getGitHub(user, password, githubToken);
         } catch (Exception e) {
             throw new FailedBuildException("Could not connect to github", e);
         }
@@ -110,12 +120,11 @@ public class Fabric8Commands extends CommandSupport {
         if (file.isFile() && file.exists()) {
             String githubToken;
             try {
-                githubToken = IOHelpers.readFully(file);
+                githubToken = GitHubClients.getInstance().loadTokenFile(file);
             } catch (IOException e) {
                 error("Failed to load GitHub token from " + file, e);
                 return null;
             }
-            githubToken = githubToken.trim();
             if (Strings.isNullOrBlank(githubToken)) {
                 error("No GitHub token found in " + file);
             } else {
@@ -138,9 +147,18 @@ public class Fabric8Commands extends CommandSupport {
     }
 
     public String getReleaseVersionFromMavenMetadata(String url) {
+        MavenMetadata metadata = getMavenMetadata(url);
+        return metadata != null ? metadata.getLatest() : null;
+    }
+
+    /**
+     * Returns the <code>latest</code> and <code>release</code> versions of the given <code>maven-metadata.xml</code> URL
+     * or null if they could not be loaded. The metadata is fetched and parsed in this JVM rather than in the build
+     * container and shared by all builds until it changes.
+     */
+    public MavenMetadata getMavenMetadata(String url) {
         try {
-            String result = shOutput("curl -L " + url + " | grep \'<latest\' | cut -f2 -d\'>\'|cut -f1 -d\'<\'");
-            return result.trim();
+            return MavenMetadataCache.getInstance().get(url);
         } catch (Exception e) {
             error("Failed to find release version from maven central " + url + " due to: " + e);
             return null;
@@ -177,11 +195,11 @@ public class Fabric8Commands extends CommandSupport {
     }
 
     public String getReleaseVersion(final String artifact) {
-        return DomUtils.parseXmlForURLAndReturnFirstElementText(getLogger(), "https://oss.sonatype.org/content/repositories/releases/" + artifact + "/maven-metadata.xml", "latest");
+        return getCachedLatestVersionFromMavenMetadata("https://oss.sonatype.org/content/repositories/releases/" + artifact + "/maven-metadata.xml");
     }
 
     public String getMavenCentralVersion(final String artifact) {
-        return DomUtils.parseXmlForURLAndReturnFirstElementText(getLogger(), ServiceConstants.MAVEN_CENTRAL + artifact + "/maven-metadata.xml", "latest");
+        return getCachedLatestVersionFromMavenMetadata(ServiceConstants.MAVEN_CENTRAL + artifact + "/maven-metadata.xml");
     }
 
     public String getVersion(String repo, String artifact) {
@@ -189,75 +207,83 @@ public class Fabric8Commands extends CommandSupport {
         artifact = Strings.stripSuffix(artifact, "/");
 
         String url = repo + "/" + artifact + "/maven-metadata.xml";
-        return DomUtils.parseXmlForURLAndReturnFirstElementText(getLogger(), url, "latest");
+        return getLatestVersionFromMavenMetadata(url);
+    }
+
+    /**
+     * Returns the latest version from the given <code>maven-metadata.xml</code> URL using the {@link VersionCache}
+     * shared by all builds so that it is only looked up once every few minutes
+     */
+    protected String getCachedLatestVersionFromMavenMetadata(String url) {
+        try {
+            return VersionCache.getInstance().get("maven-latest:" + url, VersionCache.DEFAULT_TTL_MILLIS,
+                    () -> getLatestVersionFromMavenMetadata(url));
+        } catch (Exception e) {
+            error("Failed to find the latest version in " + url, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the <code>latest</code> version from the given <code>maven-metadata.xml</code> URL using the
+     * controller wide metadata cache
+     */
+    protected String getLatestVersionFromMavenMetadata(String url) {
+        MavenMetadata metadata = getMavenMetadata(url);
+        if (metadata == null) {
+            return null;
+        }
+        if (metadata.getLatest() == null) {
+            error(url + " does not contain a <latest> element!");
+        }
+        return metadata.getLatest();
     }
 
     public boolean isArtifactAvailableInRepo(String repo, String groupId, String artifactId, String version, String ext) {
+        return isAvailable(probeArtifactInRepo(repo, groupId, artifactId, version, ext));
+    }
+
+    public boolean isFileAvailableInRepo(String repo, String path, String version, final String artifact) {
+        return isAvailable(probeFileInRepo(repo, path, version, artifact));
+    }
+
+    /**
+     * Checks if the given artifact is in the repository without downloading it
+     */
+    public ProbeResult probeArtifactInRepo(String repo, String groupId, String artifactId, String version, String ext) {
         repo = Strings.stripSuffix(repo, "/");
         groupId = Strings.stripSuffix(groupId, "/").replace('.', '/');
         artifactId = Strings.stripSuffix(artifactId, "/");
         version = Strings.stripSuffix(version, "/");
 
-        URL url = null;
-        HttpURLConnection connection = null;
-        try {
-            String urlText = repo + "/" + groupId + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version + "." + ext;
-            url = new URL(urlText);
-            connection = (HttpURLConnection) url.openConnection();
-
-            connection.setRequestMethod("GET");
-            connection.setDoInput(true);
-
-            connection.connect();
-            try (InputStream inputStream = connection.getInputStream();) {
-                try (Reader ignored = new InputStreamReader(inputStream, "UTF-8")) {
-                    echo("File is available at: " + url.toString());
-                    return true;
-                }
-            }
-        } catch (FileNotFoundException e1) {
-            echo("File not yet available: " + url.toString());
-            return false;
-        } catch (Exception e) {
-            return false;
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
-        }
+        return ArtifactProbe.getInstance().probe(repo + "/" + groupId + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version + "." + ext);
     }
 
-    public boolean isFileAvailableInRepo(String repo, String path, String version, final String artifact) {
+    /**
+     * Checks if the given file is in the repository without downloading it
+     */
+    public ProbeResult probeFileInRepo(String repo, String path, String version, final String artifact) {
         repo = Strings.stripSuffix(repo, "/");
         path = Strings.stripSuffix(path, "/");
         version = Strings.stripSuffix(version, "/");
 
+        return ArtifactProbe.getInstance().probe(repo + "/" + path + "/" + version + "/" + artifact);
+    }
 
-        URL url = null;
-        HttpURLConnection connection = null;
-        try {
-            url = new URL(repo + "/" + path + "/" + version + "/" + artifact);
-            connection = (HttpURLConnection) url.openConnection();
-
-            connection.setRequestMethod("GET");
-            connection.setDoInput(true);
-
-            connection.connect();
-            try (InputStream inputStream = connection.getInputStream();) {
-                try (Reader ignored = new InputStreamReader(inputStream, "UTF-8")) {
-                    echo("File is available at: " + url.toString());
-                    return true;
-                }
-            }
-        } catch (FileNotFoundException e1) {
-            echo("File not yet available: " + url.toString());
-            return false;
-        } catch (Exception e) {
-            return false;
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+    protected boolean isAvailable(ProbeResult result) {
+        switch (result.getStatus()) {
+            case AVAILABLE:
+                echo("File is available at: " + result.getUrl());
+                return true;
+            case NOT_FOUND:
+                echo("File not yet available: " + result.getUrl());
+                return false;
+            case UNAUTHORIZED:
+                throw new PermanentFailureException("Not authorized to check " + result.getUrl() + " status: " + result.getStatusCode());
+            default:
+                warning("Could not check " + result.getUrl() + " due to " + result.getStatus() + " " +
+                        (result.getStatusCode() > 0 ? result.getStatusCode() : result.getMessage()));
+                return false;
         }
     }
 
@@ -286,14 +312,77 @@ public class Fabric8Commands extends CommandSupport {
     }
 
 
+    /**
+     * Returns the tags of the given Docker Hub image as JSON in the format of the old v1 API; an array of
+     * <code>{"layer", "name"}</code> objects; or <code>NO_IMAGE_FOUND</code>
+     *
+     * @deprecated use {@link #getDockerImageTags(DockerRegistryClient, String)} or {@link #dockerImageTagExists(String, String)}
+     */
+    @Deprecated
     public String getDockerHubImageTags(final String image) {
+        List<String> tags = getDockerImageTags(DockerRegistryClient.dockerHub(), image);
+        if (tags == null) {
+            return "NO_IMAGE_FOUND";
+        }
         try {
-            return IOHelpers.readFully(new URL("https://registry.hub.docker.com/v1/repositories/" + image + "/tags"));
-        } catch (Exception err) {
+            return DockerRegistryClient.toV1TagsJson(tags);
+        } catch (IOException e) {
+            error("Failed to write the tags of " + image + " as JSON", e);
             return "NO_IMAGE_FOUND";
         }
     }
 
+    /**
+     * Returns the tags of the given image in the registry or null if the image could not be found
+     */
+    public List<String> getDockerImageTags(DockerRegistryClient registry, final String image) {
+        try {
+            return registry.getTags(image);
+        } catch (FileNotFoundException e) {
+            echo("No image " + image + " in " + registry.getRegistryUrl());
+            return null;
+        } catch (IOException e) {
+            error("Failed to list the tags of " + image + " in " + registry.getRegistryUrl(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Looks up the given tag of a Docker Hub image
+     */
+    public TagLookup lookupDockerImageTag(final String image, final String tag) {
+        return lookupDockerImageTag(DockerRegistryClient.dockerHub(), image, tag);
+    }
+
+    /**
+     * Looks up the given tag of an image in the <code>fabric8-docker-registry</code>
+     */
+    public TagLookup lookupFabric8DockerImageTag(final String image, final String tag) {
+        return lookupDockerImageTag(getFabric8DockerRegistryClient(), image, tag);
+    }
+
+    /**
+     * Looks up the given tag of an image in the registry; see {@link DockerRegistryClient#lookupTagCached(String, String)}
+     */
+    public TagLookup lookupDockerImageTag(DockerRegistryClient registry, final String image, final String tag) {
+        TagLookup answer = registry.lookupTagCached(image, tag);
+        if (answer.getStatus() == TagLookup.Status.UNAUTHORIZED || answer.getStatus() == TagLookup.Status.ERROR) {
+            warning("Could not look up " + image + ":" + tag + " in " + registry.getRegistryUrl() + " due to " + answer.getMessage());
+        }
+        return answer;
+    }
+
+    /**
+     * Returns true if the given tag of the Docker Hub image exists
+     */
+    public boolean dockerImageTagExists(final String image, final String tag) {
+        return lookupDockerImageTag(image, tag).isFound();
+    }
+
+    public DockerRegistryClient getFabric8DockerRegistryClient() {
+        return DockerRegistryClient.forRegistry(getDockerRegistryHost(), getDockerRegistryPort());
+    }
+
     public String searchAndReplaceMavenVersionPropertyNoCommit(final String property, final String newVersion) throws IOException {
         // example matches <fabric8.version>2.3</fabric8.version> <fabric8.version>2.3.12</fabric8.version> <fabric8.version>2.3.12.5</fabric8.version>
         return shOutput("find -type f -name \'pom.xml\' | xargs sed -i -r \'s/" + property + "[0-9][0-9]{0,2}.[0-9][0-9]{0,2}(.[0-9][0-9]{0,2)?(.[0-9][0-9]{0,2)?</" + property + newVersion + "</g\'");
@@ -504,7 +593,7 @@ TODO
 
     @NonCPS
     public boolean isOpenShift() {
-        return new DefaultOpenShiftClient().isAdaptable(OpenShiftClient.class);
+        return ClusterCapabilities.getInstance().isOpenShift();
     }
 
     public List<GHIssueComment> getIssueComments(String project, String id, String githubToken) {
@@ -516,6 +605,15 @@ TODO
     }
 
     public List<GHIssueComment> getIssueComments(String project, int issueNumber, String githubToken) {
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CI);
+        try {
+            return doGetIssueComments(project, issueNumber, githubToken);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+    }
+
+    protected List<GHIssueComment> doGetIssueComments(String project, int issueNumber, String githubToken) {
         GitHub gitHub = createGitHub(githubToken);
         GHRepository repository = null;
         try {
@@ -536,6 +634,41 @@ TODO
         }
     }
 
+    /**
+     * Scans the comments of the given pull request newest first for the given directives of the given bot
+     * and the given exact comments; only fetching as many pages of comments as required
+     */
+    public CommentDirectives scanPullRequestComments(String project, String id, String botName, Collection<CommentDirectives.Directive> wantedDirectives, String... wantedComments) {
+        int issueNumber = parseInt(id);
+        if (issueNumber <= 0) {
+            throw new FailedBuildException("GitHub issue " + id + " is not a valid issue number");
+        }
+        GitHub gitHub = createGitHub();
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CI);
+        try {
+            return CommentScanner.getInstance().scan(gitHub, project, issueNumber, botName, wantedDirectives, Arrays.asList(wantedComments));
+        } catch (IOException e) {
+            throw new FailedBuildException("Could not load comments for issue #" + issueNumber + " on repository " + project, e);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+    }
+
+    /**
+     * Returns the index of the open pull requests of the given project; revalidating it if it may be stale
+     */
+    public OpenPullRequestIndex.Snapshot getOpenPullRequests(String project) {
+        GitHub gitHub = createGitHub();
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CD);
+        try {
+            return OpenPullRequestIndex.getInstance().getOpenPullRequests(gitHub, project);
+        } catch (IOException e) {
+            throw new FailedBuildException("Could not load the open pull requests of repository " + project, e);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+    }
+
     public List<GHIssueComment> getIssueComments(String project, String id) {
         return getIssueComments(project, id, null);
     }
@@ -547,32 +680,45 @@ TODO
 
     @NonCPS
     public Boolean isSingleNode() {
-        KubernetesClient kubernetes = createKubernetesClient();
         try {
-            if (kubernetes.nodes().list().getItems().size() == 1) {
-                return true;
-            } else {
-                return false;
-            }
+            return ClusterCapabilities.getInstance().isSingleNode();
         } catch (Exception e) {
             error("Failed to query nodes - probably due to security restrictions", e);
             return false;
         }
-
     }
 
     @NonCPS
     public Boolean hasService(String name) {
+        ServiceIndex serviceIndex = getServiceIndex(null);
+        return serviceIndex != null && serviceIndex.hasService(name);
+    }
+
+    /**
+     * Returns true if the service exists and has at least one ready pod; <code>ExternalName</code> and
+     * selector-less services are always treated as ready
+     */
+    @NonCPS
+    public Boolean hasReadyService(String name) {
+        ServiceIndex serviceIndex = getServiceIndex(null);
+        return serviceIndex != null && serviceIndex.isReady(name);
+    }
+
+    /**
+     * Returns the index of the services in the given namespace which is loaded once per pipeline run
+     */
+    @NonCPS
+    public ServiceIndex getServiceIndex(String namespace) {
         KubernetesClient kubernetes = createKubernetesClient();
+        if (namespace == null) {
+            namespace = defaultNamespace(kubernetes);
+        }
         try {
-            Service service = kubernetes.services().withName(name).get();
-            if (service != null) {
-                return service.getMetadata() != null;
-            }
+            return getRunCache().getServiceIndex(kubernetes, namespace);
         } catch (Exception e) {
-            error("Failed to find service " + name, e);
+            error("Failed to find services in namespace " + namespace, e);
+            return null;
         }
-        return false;
     }
 
     @NonCPS
@@ -581,7 +727,7 @@ TODO
         if (namespace == null) {
             namespace = defaultNamespace(kubernetes);
         }
-        return KubernetesHelper.getServiceURL(kubernetes, serviceName, namespace, protocol, external);
+        return ServiceURLResolver.getInstance().getServiceURL(serviceName, namespace, protocol, external);
     }
 
     @NonCPS
@@ -601,6 +747,129 @@ TODO
 
 
     public GHPullRequest createPullRequest(final String message, final String project, final String branch) {
+        return createPullRequest(message, project, branch, "master");
+    }
+
+    public GHPullRequest createPullRequest(final String message, final String project, final String branch, final String base) {
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CD);
+        try {
+            return doCreatePullRequest(message, project, branch, base);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+    }
+
+    /**
+     * Adds the <code>[merge]</code> comment to the given pull request so that it is merged once CI passes
+     */
+    public void addMergeCommentToPullRequest(final String project, final int id) {
+        GitHub gitHub = createGitHub();
+        GitHubClients clients = GitHubClients.getInstance();
+        RequestBody body = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "{\"body\":\"[merge]\"}");
+        Request request = clients.newRequest(gitHub, "repos/" + project + "/issues/" + id + "/comments")
+                .removeHeader("Cache-Control").post(body).build();
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CD);
+        try (Response response = clients.getHttpClient().newCall(request).execute()) {
+            if (response.isSuccessful()) {
+                echo("merge PR using comment sent to " + project + " PR " + id);
+            } else {
+                error("Failed to add merge comment to " + project + " PR " + id + ".  GitHub API Response code: " + response.code());
+            }
+        } catch (IOException e) {
+            error("Failed to add merge comment to " + project + " PR " + id, e);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+    }
+
+    /**
+     * Waits until the combined commit status of the head commit of the given pull request is successful
+     *
+     * @return true if the status is successful or false if the pull request was closed first
+     */
+    public boolean waitUntilSuccessStatus(final String project, final int id) {
+        return waitUntilSuccessStatus(project, id, DEFAULT_COMMIT_STATUS_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Waits for at most the given time until the combined commit status of the head commit of the given pull
+     * request is successful
+     *
+     * @return true if the status is successful or false if the pull request was closed first
+     * @throws FailedBuildException if the status is not successful in time
+     */
+    public boolean waitUntilSuccessStatus(final String project, final int id, long timeoutMillis) {
+        final GitHub gitHub = createGitHub();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CD);
+        try (PullRequestWatcher.Subscription subscription = PullRequestWatcher.getInstance().subscribe(project)) {
+            PullRequestState pullRequest = null;
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                PullRequestState next = remaining > 0 ? subscription.await(gitHub, id, pullRequest, remaining) : null;
+                if (next == null) {
+                    throw new FailedBuildException("Timed out after " + TimeUnit.MILLISECONDS.toMinutes(timeoutMillis) +
+                            " minutes waiting for a successful commit status on Pull Request " + id + " on " + project +
+                            (pullRequest != null ? " which has status " + pullRequest.getCommitStatus() : ""));
+                }
+                pullRequest = next;
+                if (pullRequest.isClosed()) {
+                    echo("Pull Request " + pullRequest.getHtmlUrl() + " is closed");
+                    return false;
+                }
+                if (pullRequest.isStatusSuccess()) {
+                    return true;
+                }
+                if (pullRequest.getCommitStatus() == null) {
+                    echo("Error getting commit status, are CI builds enabled for this PR?");
+                } else {
+                    echo("Commit status is " + pullRequest.getCommitStatus() + ".  Waiting to merge");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FailedBuildException("Interrupted waiting for the commit status of Pull Request " + id + " on " + project, e);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+    }
+
+    /**
+     * Waits for the commit status of the given pull request to be successful then merges it;
+     * falling back to a squash merge if a merge commit is not allowed
+     */
+    public boolean mergePR(final String project, final int id) {
+        if (!waitUntilSuccessStatus(project, id)) {
+            return false;
+        }
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CD);
+        try {
+            return mergePR(project, id, "merge") || mergePR(project, id, "squash");
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+    }
+
+    protected boolean mergePR(String project, int id, String mergeMethod) {
+        GitHub gitHub = createGitHub();
+        GitHubClients clients = GitHubClients.getInstance();
+        RequestBody body = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "{\"merge_method\":\"" + mergeMethod + "\"}");
+        Request request = clients.newRequest(gitHub, "repos/" + project + "/pulls/" + id + "/merge").put(body).build();
+        try (Response response = clients.getHttpClient().newCall(request).execute()) {
+            if (response.isSuccessful()) {
+                echo(project + " PR " + id + " merged using " + mergeMethod);
+                OpenPullRequestIndex.getInstance().invalidate(project);
+                return true;
+            }
+            error(project + " PR " + id + " not merged using " + mergeMethod + ".  GitHub API Response code: " + response.code() + " " +
+                    (response.body() != null ? response.body().string() : ""));
+        } catch (IOException e) {
+            error(project + " PR " + id + " not merged using " + mergeMethod, e);
+        }
+        return false;
+    }
+
+    protected GHPullRequest doCreatePullRequest(final String message, final String project, final String branch, final String base) {
         GitHub gitHub = createGitHub();
         GHRepository repository = null;
         try {
@@ -610,13 +879,14 @@ TODO
         }
         GHPullRequest pr = null;
         try {
-            pr = repository.createPullRequest(message, branch, "master", "");
+            pr = repository.createPullRequest(message, branch, base, "");
         } catch (IOException e) {
             throw new FailedBuildException("Failed to create PullRequest on " + project + " due to " + e, e);
         }
         if (pr != null) {
             echo("Created PullRequest " + pr.getHtmlUrl());
         }
+        OpenPullRequestIndex.getInstance().invalidate(project);
         return pr;
     }
 }
@@ -696,180 +966,6 @@ final Object rs=new JsonSlurper().parse(new InputStreamReader(connection.getInpu
         connection.disconnect();
         }
 
-public Object waitUntilSuccessStatus(final Object project,final Object ref){
-
-final Object githubToken=getGitHubToken();
-
-final URL apiUrl=new URL("https://api.github.com/repos/"+project)+"/commits/"+ref)+"/status");
-        return invokeMethod("waitUntil",new Object[]{new Closure<Boolean>(this,this){
-public Boolean doCall(Object it){
-        HttpURLConnection connection=(HttpURLConnection)apiUrl.openConnection();
-        if(githubToken!=null&&DefaultGroovyMethods.invokeMethod(githubToken,"length",new Object[0])>0){
-        connection.setRequestProperty("Authorization","Bearer "+githubToken));
-        }
-
-
-        connection.setRequestMethod("GET");
-        connection.setDoOutput(true);
-        connection.connect();
-
-        Object rs;
-        Object code;
-
-        try{
-        rs=new JsonSlurper().parse(new InputStreamReader(connection.getInputStream(),"UTF-8"));
-
-        code=connection.getResponseCode();
-        }catch(Exception err){
-        echo("CI checks have not passed yet so waiting before merging");
-        }finally{
-        connection.disconnect();
-        }
-
-
-        if(rs==null){
-        echo("Error getting commit status, are CI builds enabled for this PR?");
-        return false;
-        }
-
-        if(rs!=null&&rs.state=="success"){
-        return true;
-        }else{
-        echo("Commit status is "+rs.state)+".  Waiting to merge");
-        return false;
-        }
-
-        }
-
-public Boolean doCall(){
-        return doCall(null);
-        }
-
-        });
-        }
-
-
-public Object getGithubBranch(final Object project,final Object id,final Object githubToken){
-
-        URL apiUrl=new URL("https://api.github.com/repos/"+project)+"/pulls/"+id));
-        HttpURLConnection connection=(HttpURLConnection)apiUrl.openConnection();
-        if(githubToken!=null&&githubToken.invokeMethod("length",new Object[0])>0){
-        connection.setRequestProperty("Authorization","Bearer "+githubToken));
-        }
-
-
-        connection.setRequestMethod("GET");
-        connection.setDoOutput(true);
-        connection.connect();
-        try{
-        Object rs=new JsonSlurper().parse(new InputStreamReader(connection.getInputStream(),"UTF-8"));
-        setProperty("branch",rs.head.ref);
-        echo(this.getBinding().getProperty("branch")));
-        return this.getBinding().getProperty("branch");
-        }catch(Exception err){
-        return echo("Error while fetching the github branch");
-        }finally{
-        if(DefaultGroovyMethods.asBoolean(connection)){
-        connection.disconnect();
-        }
-
-        }
-
-        }
-
-        /*
-public Object mergePR(final Object project,final Object id){
-final Object githubToken=getGitHubToken();
-        Object branch=getGithubBranch(project,id,githubToken);
-        waitUntilSuccessStatus(project,branch);
-
-        URL apiUrl=new URL("https://api.github.com/repos/"+project)+"/pulls/"+id)+"/merge");
-
-        HttpURLConnection connection=(HttpURLConnection)apiUrl.openConnection();
-        if(DefaultGroovyMethods.invokeMethod(githubToken,"length",new Object[0])>0){
-        connection.setRequestProperty("Authorization","Bearer "+githubToken));
-        }
-
-        connection.setRequestMethod("PUT");
-        connection.setDoOutput(true);
-        connection.connect();
-
-// execute the request
-final Reference<Object> rs;
-        try{
-        rs.set(new JsonSlurper().parse(new InputStreamReader(connection.getInputStream(),"UTF-8")));
-
-final int code=connection.getResponseCode();
-
-        if(code!=200){
-        if(code==405){
-        return invokeMethod("error",new Object[]{project)+" PR "+id)+" not merged.  "+rs.get().message));
-        }else{
-        return invokeMethod("error",new Object[]{project)+" PR "+id)+" not merged.  GitHub API Response code: "+code));
-        }
-
-        }else{
-        return echo(project)+" PR "+id)+" "+rs.get().message));
-        }
-
-        }catch(Exception err){
-        // if merge failed try to squash and merge
-        connection=null;
-        rs.set(null);
-        return squashAndMerge(project,id);
-        }finally{
-        if(DefaultGroovyMethods.asBoolean(connection)){
-        connection.disconnect();
-        connection=null;
-        }
-
-        rs.set(null);
-        }
-
-        }
-
-public Object squashAndMerge(final Object project,final Object id){
-final Object githubToken=getGitHubToken();
-        URL apiUrl=new URL("https://api.github.com/repos/"+project)+"/pulls/"+id)+"/merge");
-
-        HttpURLConnection connection=(HttpURLConnection)apiUrl.openConnection();
-        if(DefaultGroovyMethods.invokeMethod(githubToken,"length",new Object[0])>0){
-        connection.setRequestProperty("Authorization","Bearer "+githubToken));
-        }
-
-        connection.setRequestMethod("PUT");
-        connection.setDoOutput(true);
-        connection.connect();
-        String body="{\"merge_method\":\"squash\"}";
-
-final Reference<Object> rs;
-        try{
-        OutputStreamWriter writer=new OutputStreamWriter(connection.getOutputStream());
-        writer.write(body);
-        writer.flush();
-
-        rs.set(new JsonSlurper().parse(new InputStreamReader(connection.getInputStream(),"UTF-8")));
-final int code=connection.getResponseCode();
-
-        if(code!=200){
-        if(code==405){
-        return invokeMethod("error",new Object[]{project)+" PR "+id)+" not merged.  "+rs.get().message));
-        }else{
-        return invokeMethod("error",new Object[]{project)+" PR "+id)+" not merged.  GitHub API Response code: "+code));
-        }
-
-        }else{
-        return echo(project)+" PR "+id)+" "+rs.get().message));
-        }
-
-        }finally{
-        connection.disconnect();
-        connection=null;
-        rs.set(null);
-        }
-
-        }
-
 public void addCommentToPullRequest(final String comment,final Object pr,final String project){
 final Object githubToken=getGitHubToken();
 final URL apiUrl=new URL("https://api.github.com/repos/"+project)+"/issues/"+pr)+"/comments");
@@ -900,37 +996,6 @@ final URL apiUrl=new URL("https://api.github.com/repos/"+project)+"/issues/"+pr)
 
         }
 
-public void addMergeCommentToPullRequest(final String pr,final String project){
-final Object githubToken=getGitHubToken();
-final URL apiUrl=new URL("https://api.github.com/repos/"+project+"/issues/"+pr+"/comments");
-        echo("merge PR using comment sent to "+apiUrl));
-        try{
-        HttpURLConnection connection=(HttpURLConnection)apiUrl.openConnection();
-        if(DefaultGroovyMethods.invokeMethod(githubToken,"length",new Object[0])>0){
-        connection.setRequestProperty("Authorization","Bearer "+githubToken));
-        }
-
-        connection.setRequestMethod("POST");
-        connection.setDoOutput(true);
-        connection.connect();
-
-        String body="{\"body\":\"[merge]\"}";
-
-        OutputStreamWriter writer=new OutputStreamWriter(connection.getOutputStream());
-        writer.write(body);
-        writer.flush();
-
-        // execute the POST request
-        new InputStreamReader(connection.getInputStream());
-
-        connection.disconnect();
-        }catch(Exception err){
-        invokeMethod("error",new Object[]{"ERROR  "+err));
-        }
-
-        }
-
-
 public Object getGitHubProject(){
 final Reference<Object> url=new Reference<Object>(getScmPushUrl());
         if(!DefaultGroovyMethods.invokeMethod(url.get(),"contains",new Object[]{"github.com").asBoolean()){
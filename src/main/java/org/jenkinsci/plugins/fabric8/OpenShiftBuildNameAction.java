@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8;
+
+import hudson.model.InvisibleAction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the name of the OpenShift Build which triggered a pipeline run so that it is only
+ * resolved once per run rather than on every step which needs it
+ */
+public class OpenShiftBuildNameAction extends InvisibleAction {
+    private static final int MAX_RECENT_RUNS = 256;
+
+    private static final Map<String, OpenShiftBuildNameAction> recentRuns = new LinkedHashMap<String, OpenShiftBuildNameAction>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, OpenShiftBuildNameAction> eldest) {
+            return size() > MAX_RECENT_RUNS;
+        }
+    };
+
+    private final String buildName;
+    private Boolean valid;
+
+    public OpenShiftBuildNameAction(String buildName) {
+        this.buildName = buildName;
+    }
+
+    /**
+     * Returns the action recently resolved for the given run id or null if it has not been resolved yet
+     * in this JVM; which avoids looking up the run in the Jenkins item tree
+     */
+    public static OpenShiftBuildNameAction getRecent(String runId) {
+        synchronized (recentRuns) {
+            return recentRuns.get(runId);
+        }
+    }
+
+    public static void putRecent(String runId, OpenShiftBuildNameAction action) {
+        synchronized (recentRuns) {
+            recentRuns.put(runId, action);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OpenShiftBuildNameAction{" +
+                "buildName='" + buildName + '\'' +
+                ", valid=" + valid +
+                '}';
+    }
+
+    /**
+     * Returns the name of the OpenShift Build or null if the run was not triggered by one
+     */
+    public String getBuildName() {
+        return buildName;
+    }
+
+    /**
+     * Returns whether the Build has been found in the users namespace or null if it has not been checked yet
+     */
+    public synchronized Boolean getValid() {
+        return valid;
+    }
+
+    public synchronized void setValid(Boolean valid) {
+        this.valid = valid;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8;
+
+/**
+ * Thrown from a condition being waited on or a block being retried to indicate that trying again will not help;
+ * such as an authentication failure, so that the wait or retry is aborted straight away
+ */
+public class PermanentFailureException extends FailedBuildException {
+    public PermanentFailureException(String message) {
+        super(message);
+    }
+
+    public PermanentFailureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Returns the permanent failure which caused the given exception or null if it is not a permanent failure
+     */
+    public static PermanentFailureException find(Throwable e) {
+        while (e != null) {
+            if (e instanceof PermanentFailureException) {
+                return (PermanentFailureException) e;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+            e = e.getCause();
+        }
+        return null;
+    }
+}
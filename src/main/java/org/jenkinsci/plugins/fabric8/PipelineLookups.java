@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8;
+
+import org.jenkinsci.plugins.fabric8.cache.VersionCache;
+import org.jenkinsci.plugins.fabric8.docker.DockerRegistryClient;
+import org.jenkinsci.plugins.fabric8.model.ServiceConstants;
+import org.jenkinsci.plugins.fabric8.repository.MavenMetadataCache;
+
+import java.io.IOException;
+
+/**
+ * Read only lookups for the Groovy DSL. The caches behind them are deliberately not whitelisted for
+ * sandboxed scripts as they are shared by every build on the controller.
+ */
+public class PipelineLookups {
+    public static final String SONATYPE_RELEASES_URL = ServiceConstants.SONATYPE_REPOSITORY_URL + "/content/repositories/releases/";
+
+    /**
+     * Returns the <code>latest</code> version from the <code>maven-metadata.xml</code> at the given URL
+     */
+    public static String getLatestVersionFromMavenMetadata(String url) throws IOException {
+        return MavenMetadataCache.getInstance().get(url).getLatest();
+    }
+
+    /**
+     * Returns the <code>release</code> version of the given artifact path in the Sonatype releases repository
+     */
+    public static String getReleaseVersion(String artifact) throws Exception {
+        return getCachedRelease(SONATYPE_RELEASES_URL + artifact + "/maven-metadata.xml");
+    }
+
+    /**
+     * Returns the <code>release</code> version of the given artifact path in maven central
+     */
+    public static String getMavenCentralVersion(String artifact) throws Exception {
+        return getCachedRelease(ServiceConstants.MAVEN_CENTRAL + artifact + "/maven-metadata.xml");
+    }
+
+    /**
+     * Returns the tags of the given Docker Hub image in the JSON format of the old v1 API
+     */
+    public static String getDockerHubImageTags(String image) throws IOException {
+        return DockerRegistryClient.toV1TagsJson(DockerRegistryClient.dockerHub().getTags(image));
+    }
+
+    /**
+     * Returns true if the given tag of the Docker Hub image exists
+     */
+    public static boolean dockerImageTagExists(String image, String tag) {
+        return DockerRegistryClient.dockerHub().lookupTagCached(image, tag).isFound();
+    }
+
+    private static String getCachedRelease(String url) throws Exception {
+        return VersionCache.getInstance().get("maven-release:" + url, VersionCache.DEFAULT_TTL_MILLIS,
+                () -> MavenMetadataCache.getInstance().get(url).getRelease());
+    }
+}
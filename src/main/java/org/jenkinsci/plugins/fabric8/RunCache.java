@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import org.jenkinsci.plugins.fabric8.kubernetes.BuildAnnotationBuffer;
+import org.jenkinsci.plugins.fabric8.kubernetes.ServiceIndex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches state for a single pipeline run which is shared by a step and all the child steps and
+ * commands created from it via the {@link CommandSupport#CommandSupport(CommandSupport)} constructor
+ */
+public class RunCache {
+    private final Map<String, ServiceIndex> serviceIndexes = new ConcurrentHashMap<>();
+    private final BuildAnnotationBuffer buildAnnotations = new BuildAnnotationBuffer();
+
+    /**
+     * Returns the index of services in the given namespace; loading it on first use
+     */
+    public ServiceIndex getServiceIndex(KubernetesClient client, String namespace) {
+        return serviceIndexes.computeIfAbsent(namespace, ns -> ServiceIndex.load(client, ns));
+    }
+
+    /**
+     * Forces the services to be reloaded on next use; e.g. if a step creates new services
+     */
+    public void clearServiceIndexes() {
+        serviceIndexes.clear();
+    }
+
+    /**
+     * Returns the annotations waiting to be written to the OpenShift Build of this run
+     */
+    public BuildAnnotationBuffer getBuildAnnotations() {
+        return buildAnnotations;
+    }
+}
@@ -20,29 +20,31 @@ import io.fabric8.kubernetes.api.KubernetesHelper;
 import io.fabric8.kubernetes.api.environments.Environments;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.pipelines.PipelineConfiguration;
-import io.fabric8.kubernetes.client.DefaultKubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.openshift.api.model.Build;
 import io.fabric8.openshift.api.model.ImageStream;
-import io.fabric8.openshift.api.model.ImageStreamStatus;
-import io.fabric8.openshift.api.model.NamedTagEventList;
-import io.fabric8.openshift.api.model.TagEvent;
-import io.fabric8.openshift.client.DefaultOpenShiftClient;
-import io.fabric8.openshift.client.OpenShiftAPIGroups;
 import io.fabric8.openshift.client.OpenShiftClient;
 import io.fabric8.utils.Strings;
 import jenkins.model.Jenkins;
 import org.apache.commons.beanutils.PropertyUtils;
+import org.jenkinsci.plugins.fabric8.github.CommentDirectives.Directive;
 import org.jenkinsci.plugins.fabric8.helpers.GitHelper;
+import org.jenkinsci.plugins.fabric8.kubernetes.BuildAnnotationBuffer;
+import org.jenkinsci.plugins.fabric8.kubernetes.ClusterCapabilities;
+import org.jenkinsci.plugins.fabric8.kubernetes.ConfigMapCache;
+import org.jenkinsci.plugins.fabric8.kubernetes.ImageStreamTags;
+import org.jenkinsci.plugins.fabric8.kubernetes.KubernetesClients;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /*
 import org.csanchez.jenkins.plugins.kubernetes.PodAnnotation;
@@ -51,8 +53,10 @@ import org.csanchez.jenkins.plugins.kubernetes.PodAnnotation;
 public class Utils extends CommandSupport {
     private static final long serialVersionUID = 1L;
     public static final String CLIENTS = "clients";
+    public static final long DEFAULT_IMAGE_STREAM_TAG_TIMEOUT_MILLIS = 15000L;
 
     private String branch;
+    private long imageStreamTagTimeoutMillis = DEFAULT_IMAGE_STREAM_TAG_TIMEOUT_MILLIS;
 
     public Utils() {
     }
@@ -75,8 +79,18 @@ public class Utils extends CommandSupport {
         return namespace;
     }
 
+    /**
+     * Returns the shared kubernetes client; callers must not close it
+     */
     public static KubernetesClient createKubernetesClient() {
-        return new DefaultKubernetesClient();
+        return KubernetesClients.getInstance().kubernetesClient();
+    }
+
+    /**
+     * Returns the shared OpenShift client; callers must not close it
+     */
+    public static OpenShiftClient createOpenShiftClient() {
+        return KubernetesClients.getInstance().openShiftClient();
     }
 
     public static String getNamespace() {
@@ -89,8 +103,15 @@ public class Utils extends CommandSupport {
 
     @NonCPS
     public String environmentNamespace(final String environment) {
-        KubernetesClient kubernetesClient = createKubernetesClient();
-        String answer = Environments.namespaceForEnvironment(kubernetesClient, environment, defaultNamespace(kubernetesClient));
+        final KubernetesClient kubernetesClient = createKubernetesClient();
+        final String namespace = defaultNamespace(kubernetesClient);
+        String answer;
+        try {
+            answer = KubernetesClients.getInstance().coalesce("environmentNamespace/" + namespace + "/" + environment,
+                    () -> Environments.namespaceForEnvironment(kubernetesClient, environment, namespace));
+        } catch (Exception e) {
+            throw new FailedBuildException("Failed to find the namespace of environment " + environment + " due to " + e, e);
+        }
         if (Strings.notEmpty(answer)) {
             return answer;
         }
@@ -108,17 +129,21 @@ public class Utils extends CommandSupport {
      */
     @NonCPS
     public Environments environments() {
-        KubernetesClient kubernetesClient = createKubernetesClient();
-        return Environments.load(kubernetesClient, defaultNamespace(kubernetesClient));
+        return environments(getNamespace());
     }
 
     /**
-     * Loads the environments from the given namespace
+     * Loads the environments from the given namespace, reusing the cached value until the ConfigMaps change
      */
     @NonCPS
-    public Environments environments(String namespace) {
-        KubernetesClient kubernetesClient = createKubernetesClient();
-        return Environments.load(kubernetesClient, namespace);
+    public Environments environments(final String namespace) {
+        final KubernetesClient kubernetesClient = createKubernetesClient();
+        try {
+            return ConfigMapCache.getInstance().getDerivedValue(namespace, "environments",
+                    () -> KubernetesClients.getInstance().coalesce("environments/" + namespace, () -> Environments.load(kubernetesClient, namespace)));
+        } catch (Exception e) {
+            throw new FailedBuildException("Failed to load the environments in namespace " + namespace + " due to " + e, e);
+        }
     }
 
     /**
@@ -126,17 +151,21 @@ public class Utils extends CommandSupport {
      */
     @NonCPS
     public PipelineConfiguration pipelineConfiguration() {
-        KubernetesClient kubernetesClient = createKubernetesClient();
-        return PipelineConfiguration.loadPipelineConfiguration(kubernetesClient, defaultNamespace(kubernetesClient));
+        return pipelineConfiguration(getNamespace());
     }
 
     /**
-     * Loads the environments from the given namespace
+     * Loads the pipeline configuration from the given namespace, reusing the cached value until the ConfigMaps change
      */
     @NonCPS
-    public PipelineConfiguration pipelineConfiguration(String namespace) {
-        KubernetesClient kubernetesClient = createKubernetesClient();
-        return PipelineConfiguration.loadPipelineConfiguration(kubernetesClient, namespace);
+    public PipelineConfiguration pipelineConfiguration(final String namespace) {
+        final KubernetesClient kubernetesClient = createKubernetesClient();
+        try {
+            return ConfigMapCache.getInstance().getDerivedValue(namespace, "pipelineConfiguration",
+                    () -> KubernetesClients.getInstance().coalesce("pipelineConfiguration/" + namespace, () -> PipelineConfiguration.loadPipelineConfiguration(kubernetesClient, namespace)));
+        } catch (Exception e) {
+            throw new FailedBuildException("Failed to load the pipeline configuration in namespace " + namespace + " due to " + e, e);
+        }
     }
 
     /**
@@ -174,8 +203,7 @@ public class Utils extends CommandSupport {
      */
     @NonCPS
     public boolean supportsOpenShiftS2I() {
-        OpenShiftClient client = new DefaultOpenShiftClient();
-        return client.supportsOpenShiftAPIGroup(OpenShiftAPIGroups.IMAGE);
+        return ClusterCapabilities.getInstance().supportsOpenShiftS2I();
     }
 
     /**
@@ -213,9 +241,8 @@ public class Utils extends CommandSupport {
     @NonCPS
     public String getUsersPipelineConfig(final String k) {
         // first lets check if we have the new pipelines configmap in the users home namespace
-        KubernetesClient client = new DefaultKubernetesClient();
         final String ns = getUsersNamespace();
-        ConfigMap r = client.configMaps().inNamespace(ns).withName("fabric8-pipelines").get();
+        ConfigMap r = ConfigMapCache.getInstance().getConfigMap(ns, "fabric8-pipelines");
         if (r == null) {
             error("no fabric8-pipelines configmap found in namespace " + ns);
             return null;
@@ -233,9 +260,7 @@ public class Utils extends CommandSupport {
     public String getConfigMap(String ns, final String cm, String key) {
 
         // first lets check if we have the new pipeliens configmap in the users home namespace
-        KubernetesClient client = new DefaultKubernetesClient();
-
-        ConfigMap r = client.configMaps().inNamespace(ns).withName(cm).get();
+        ConfigMap r = ConfigMapCache.getInstance().getConfigMap(ns, cm);
         if (r == null) {
             error("no " + cm + " configmap found in namespace " + ns);
             return null;
@@ -261,86 +286,87 @@ public class Utils extends CommandSupport {
 
     @NonCPS
     public String getImageStreamSha(Object imageStreamName) {
-        OpenShiftClient oc = new DefaultOpenShiftClient();
+        OpenShiftClient oc = createOpenShiftClient();
         return findTagSha(oc, (String) imageStreamName, getNamespace());
     }
 
     @NonCPS
     public String findTagSha(OpenShiftClient client, final String imageStreamName, String namespace) {
-        Object currentImageStream = null;
-        for (int i = 0; i < 15; i++) {
-            if (i > 0) {
-                echo("Retrying to find tag on ImageStream " + imageStreamName);
-            }
-            ;
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                echo("interrupted " + e);
-            }
-            ;
-            currentImageStream = client.imageStreams().withName(imageStreamName).get();
-            if (currentImageStream == null) {
-                continue;
-            }
-
-            ImageStreamStatus status = ((ImageStream) currentImageStream).getStatus();
-            if (status == null) {
-                continue;
-            }
-
-            List<NamedTagEventList> tags = status.getTags();
-            if (tags == null || tags.isEmpty()) {
-                continue;
-            }
-
-            // latest tag is the first
-            TAG_EVENT_LIST:
-            for (NamedTagEventList list : tags) {
-                List<TagEvent> items = list.getItems();
-                if (items == null) {
-                    continue TAG_EVENT_LIST;
-                }
-
-                // latest item is the first
-                for (TagEvent item : items) {
-                    String image = item.getImage();
-                    if (image != null && !image.equals("")) {
-                        echo("Found tag on ImageStream " + imageStreamName + " tag: " + image);
-                        return image;
-                    }
-
-                }
-
-            }
-
-            // No image found, even after several retries:
-            if (currentImageStream == null) {
+        AtomicReference<ImageStream> currentImageStream = new AtomicReference<>();
+        try {
+            String image = ImageStreamTags.waitForLatestImage(client, namespace, imageStreamName, imageStreamTagTimeoutMillis, currentImageStream);
+            echo("Found tag on ImageStream " + imageStreamName + " tag: " + image);
+            return image;
+        } catch (TimeoutException e) {
+            // No image found before the deadline
+            if (currentImageStream.get() == null) {
                 error("Could not find a current ImageStream with name " + imageStreamName + " in namespace " + namespace);
-                return null;
             } else {
                 error("Could not find a tag in the ImageStream " + imageStreamName);
-                return null;
             }
+        } catch (InterruptedException e) {
+            echo("interrupted " + e);
+        } catch (Exception e) {
+            error("Failed to find a tag on the ImageStream " + imageStreamName + " in namespace " + namespace, e);
         }
         return null;
     }
 
+    public long getImageStreamTagTimeoutMillis() {
+        return imageStreamTagTimeoutMillis;
+    }
+
+    /**
+     * Sets the maximum time to wait for an ImageStream to have a tagged image
+     */
+    public void setImageStreamTagTimeoutMillis(long imageStreamTagTimeoutMillis) {
+        this.imageStreamTagTimeoutMillis = imageStreamTagTimeoutMillis;
+    }
+
+    /**
+     * Adds the annotation to the OpenShift Build straight away or, if a step is batching annotations, buffers it
+     * so that it is written along with any others in a single patch when the batch ends
+     */
     @NonCPS
     public Build addAnnotationToBuild(final String annotation, final String value) {
-        Fabric8Commands flow = new Fabric8Commands(this);
-        if (flow.isOpenShift()) {
-            String buildName = getValidOpenShiftBuildName();
-            echo("Adding annotation \'" + annotation + ": " + value + "\' to Build " + buildName);
-            OpenShiftClient oClient = new DefaultOpenShiftClient();
-            final String usersNamespace = getUsersNamespace();
-            echo("looking for " + buildName + " in namespace " + usersNamespace);
-        } else {
-            echo("Not running on openshift so skip adding annotation " + annotation + ": value");
+        echo("Adding annotation \'" + annotation + ": " + value + "\' to Build");
+        BuildAnnotationBuffer buffer = getRunCache().getBuildAnnotations();
+        buffer.add(annotation, value);
+        if (!buffer.isBatching()) {
+            flushBuildAnnotations();
         }
         return null;
     }
 
+    /**
+     * Writes any buffered annotations to the OpenShift Build of the current run in a single patch
+     */
+    public void flushBuildAnnotations() {
+        BuildAnnotationBuffer buffer = getRunCache().getBuildAnnotations();
+        if (buffer.isEmpty()) {
+            return;
+        }
+        Fabric8Commands flow = new Fabric8Commands(this);
+        if (!flow.isOpenShift()) {
+            echo("Not running on openshift so skip adding annotations " + buffer.getAnnotations().keySet());
+            return;
+        }
+        String buildName = getValidOpenShiftBuildName();
+        if (Strings.isNullOrBlank(buildName)) {
+            return;
+        }
+        final String usersNamespace = getUsersNamespace();
+        try {
+            Map<String, String> annotations = buffer.flush(createOpenShiftClient(), usersNamespace, buildName);
+            echo("Added annotations " + annotations.keySet() + " to Build " + buildName + " in namespace " + usersNamespace);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error("Interrupted while adding annotations to Build " + buildName, e);
+        } catch (Exception e) {
+            error("Failed to add annotations to Build " + buildName + " in namespace " + usersNamespace, e);
+        }
+    }
+
     @NonCPS
     public String getUsersNamespace() {
         String usersNamespace = getNamespace();
@@ -429,7 +455,7 @@ public class Utils extends CommandSupport {
         if (flow.isOpenShift()) {
             echo("Looking for matching Build " + buildName);
         }
-        OpenShiftClient oClient = new DefaultOpenShiftClient();
+        OpenShiftClient oClient = createOpenShiftClient();
         String usersNamespace = getUsersNamespace();
         Build build = oClient.builds().inNamespace(usersNamespace).withName(buildName).get();
         return build != null;
@@ -437,8 +463,15 @@ public class Utils extends CommandSupport {
 
     @NonCPS
     public String getValidOpenShiftBuildName() {
-        final String buildName = getOpenShiftBuildName();
+        OpenShiftBuildNameAction action = getOpenShiftBuildNameAction();
+        final String buildName = action != null ? action.getBuildName() : null;
+        if (action != null && Boolean.TRUE.equals(action.getValid())) {
+            return buildName;
+        }
         if (isValidBuildName(buildName)) {
+            if (action != null) {
+                action.setValid(true);
+            }
             return buildName;
         } else {
             error("No matching openshift build with name " + buildName + " found");
@@ -462,165 +495,25 @@ public class Utils extends CommandSupport {
         }
 
     }
+*/
 
-    public Object getExistingPR(final String project, Object pair) {
-        final Object property = DefaultGroovyMethods.getAt(pair, 0);
-        final Object version = DefaultGroovyMethods.getAt(pair, 1);
-
-        Fabric8Commands flow = new Fabric8Commands();
-        final Object githubToken = flow.getGitHubToken();
-        final URL apiUrl = new URL("https://api.github.com/repos/" + project) + "/pulls");
-        Object rs = invokeMethod("restGetURL", new Object[]{new Closure<URL>(this, this) {
-            public URL doCall(Object it) {
-                setProperty("authString", githubToken);
-                setProperty("url", apiUrl);
-                return apiUrl;
-            }
-
-            public URL doCall() {
-                return doCall(null);
-            }
-
-        }});
-
-        if (rs == null || rs.invokeMethod("isEmpty", new Object[0])) {
-            return null;
+    /**
+     * Returns the number of the open pull request whose title mentions updating the given property to the given
+     * version or null
+     */
+    public Integer getExistingPR(String project, String property, String version) {
+        Fabric8Commands flow = new Fabric8Commands(this);
+        Integer answer = flow.getOpenPullRequests(project).findByTitleContaining("fix(version): update " + property + " to " + version);
+        if (answer != null) {
+            echo("matched PR " + answer);
         }
-
-        for (int i = 0; i.compareTo(rs.invokeMethod("size", new Object[0])) < 0; i++) {
-            final Object pr = DefaultGroovyMethods.getAt(rs, i);
-            echo("checking PR " + pr.number)
-        });
-        if (pr.state == "open" && pr.title.invokeMethod("contains", new Object[]{"fix(version): update " + property) + " to " + version)})) {
-            echo("matched"
-        });
-        return pr.number;
+        return answer;
     }
 
-}
-
-        return null;
-                }
-
-public Object getOpenPRs(final Object project){
-
-        List openPRs=new ArrayList();
-        Fabric8Commands flow=new Fabric8Commands();
-final Object githubToken=flow.getGitHubToken();
-final URL apiUrl=new URL("https://api.github.com/repos/"+project)+"/pulls");
-        Object rs=invokeMethod("restGetURL",new Object[]{new Closure<URL>(this,this){
-public URL doCall(Object it){
-        setProperty("authString",githubToken);
-        setProperty("url",apiUrl);
-        return apiUrl;
-        }
-
-public URL doCall(){
-        return doCall(null);
-        }
-
-        }});
-
-        if(rs==null||rs.invokeMethod("isEmpty",new Object[0])){
-        return false;
-        }
-
-        for(int i=0;i.compareTo(rs.invokeMethod("size",new Object[0]))< 0;i++){
-        Object pr=DefaultGroovyMethods.getAt(rs,i);
-
-        if(pr.state=="open"){
-        DefaultGroovyMethods.leftShift(openPRs,pr.number));
-        }
-
-        }
-
-        return openPRs;
-        }
-
-public Object getDownstreamProjectOverrides(Object project,Object id,Object downstreamProject,Object botName){
-
-        if(!downstreamProject.asBoolean()){
-        invokeMethod("error",new Object[]{"no downstreamProjects provided"});
-        }
-
-        Fabric8Commands flow=new Fabric8Commands();
-        Object comments=flow.getIssueComments(project,id);
-        // start by looking at the most recent commments and work back
-        Collections.reverse(comments);
-        for(Object comment:comments){
-        echo("Found PR comment "+comment.body)});
-        Object text=comment.body.invokeMethod("trim",new Object[0]);
-        String match="CI downstream projects";
-        if(text.invokeMethod("startsWith",new Object[]{botName}).asBoolean()){
-        if(text.invokeMethod("contains",new Object[]{match}).asBoolean()){
-        Object result=text.invokeMethod("substring",new Object[]{text.invokeMethod("indexOf",new Object[]{"["})+1,text.invokeMethod("indexOf",new Object[]{"]"})});
-        if(!result.asBoolean()){
-        echo("no downstream projects found"});
-        }
-
-        ArrayList list=(ArrayList)DefaultGroovyMethods.split(result,",");
-        for(Object repos:list){
-        if(!DefaultGroovyMethods.invokeMethod(repos,"contains",new Object[]{"="}).asBoolean()){
-        invokeMethod("error",new Object[]{"no override project found in the form organisation=foo"});
-        }
-
-final ArrayList overrides=(ArrayList)DefaultGroovyMethods.split(repos,"=");
-        if(downstreamProject==DefaultGroovyMethods.invokeMethod(overrides.get(0),"trim",new Object[0])){
-        "matched and returning "+DefaultGroovyMethods.invokeMethod(overrides.get(1),"trim",new Object[0]));
-        return DefaultGroovyMethods.invokeMethod(overrides.get(1),"trim",new Object[0]);
-        }
-
-        }
-
-        }
-
-        }
-
-        }
-
-        }
-
-public Object getDownstreamProjectOverrides(Object project,Object id,Object downstreamProject){
-        return getDownstreamProjectOverrides(project,id,downstreamProject,"@fabric8cd");
-        }
-
-public Boolean hasPRComment(Object project,Object id,Object match){
-        Fabric8Commands flow=new Fabric8Commands();
-        Object comments=flow.getIssueComments(project,id);
-        // start by looking at the most recent commments and work back
-        Collections.reverse(comments);
-        for(Object comment:comments){
-        echo("Found PR comment "+comment.body)});
-        Object text=comment.body.invokeMethod("trim",new Object[0]);
-        if(text.invokeMethod("equalsIgnoreCase",new Object[]{match}).asBoolean()){
-        return true;
-        }
-
-        }
-
-        return false;
-        }
-
-public Object getDownstreamProjectOverrides(Object downstreamProject,Object botName){
-
-        Fabric8Commands flow=new Fabric8Commands();
-
-        Object id=getenv("CHANGE_ID;
-        if(!id.asBoolean()){
-        invokeMethod("error",new Object[]{"no env.CHANGE_ID / pull request id found"});
-        }
-
-
-        Object project=getRepoName();
-
-        return getDownstreamProjectOverrides(project,id,downstreamProject,botName="@fabric8cd");
-        }
-
-public Object getDownstreamProjectOverrides(Object downstreamProject){
-        return getDownstreamProjectOverrides(downstreamProject,"@fabric8cd");
-        }
-*/
-
+    public List<Integer> getOpenPRs(String project) {
+        Fabric8Commands flow = new Fabric8Commands(this);
+        return flow.getOpenPullRequests(project).getNumbers();
+    }
 
     public Boolean isSkipCIDeploy(String botName) {
         String id = getenv("CHANGE_ID");
@@ -628,41 +521,51 @@ public Object getDownstreamProjectOverrides(Object downstreamProject){
             error("no env.CHANGE_ID / pull request id found");
         }
 
-
         Fabric8Commands flow = new Fabric8Commands(this);
         String project = getRepoName();
+        return flow.scanPullRequestComments(project, id, botName, EnumSet.of(Directive.SKIP_DEPLOY)).getSkipDeploy();
+    }
 
-        List comments = flow.getIssueComments(project, id);
-        String skipTrue = "CI skip deploy=true";
-        String skipFalse = "CI skip deploy=false";
+    public Boolean isSkipCIDeploy() {
+        return isSkipCIDeploy("@fabric8cd");
+    }
 
-        // start by looking at the most recent commments and work back
-        Collections.reverse(comments);
-        for (Object comment : comments) {
-            Object body = null;
-            try {
-                body = PropertyUtils.getProperty(comment, "body");
-            } catch (Exception e) {
-                error("Failed to get body property on " + comment + " due to: " + e);
-            }
+    /**
+     * Returns the override of the given downstream project from the newest <code>CI downstream projects</code>
+     * directive on the current pull request or null if there is none
+     */
+    public String getDownstreamProjectOverrides(String downstreamProject, String botName) {
+        String id = getenv("CHANGE_ID");
+        if (Strings.isNullOrBlank(id)) {
+            error("no env.CHANGE_ID / pull request id found");
+            return null;
+        }
+        return getDownstreamProjectOverrides(getRepoName(), id, downstreamProject, botName);
+    }
 
-            if (body instanceof String) {
-                String text = body.toString().trim();
-                if (text.startsWith(botName)) {
-                    if (text.contains(skipTrue)) {
-                        return true;
-                    } else if (text.contains(skipFalse)) {
-                        return false;
-                    }
+    public String getDownstreamProjectOverrides(String downstreamProject) {
+        return getDownstreamProjectOverrides(downstreamProject, "@fabric8cd");
+    }
 
-                }
-            }
+    public String getDownstreamProjectOverrides(String project, String id, String downstreamProject, String botName) {
+        if (Strings.isNullOrBlank(downstreamProject)) {
+            error("no downstreamProjects provided");
+            return null;
         }
-        return null;
+        Fabric8Commands flow = new Fabric8Commands(this);
+        String answer = flow.scanPullRequestComments(project, id, botName, EnumSet.of(Directive.DOWNSTREAM_PROJECTS)).getDownstreamProjectOverrides().get(downstreamProject);
+        if (answer != null) {
+            echo("matched and returning " + answer);
+        }
+        return answer;
     }
 
-    public Boolean isSkipCIDeploy() {
-        return isSkipCIDeploy("@fabric8cd");
+    /**
+     * Returns true if the given pull request has a comment matching the given text ignoring case
+     */
+    public boolean hasPRComment(String project, String id, String match) {
+        Fabric8Commands flow = new Fabric8Commands(this);
+        return flow.scanPullRequestComments(project, id, null, EnumSet.noneOf(Directive.class), match).hasComment(match);
     }
 
     public String getRepoName() {
@@ -683,34 +586,63 @@ public Object getDownstreamProjectOverrides(Object downstreamProject){
 
     @NonCPS
     public String getOpenShiftBuildName() {
+        OpenShiftBuildNameAction action = getOpenShiftBuildNameAction();
+        return action != null ? action.getBuildName() : null;
+    }
+
+    /**
+     * Returns the action recording the OpenShift Build name of the current run; resolving it
+     * and adding it to the run the first time it is required
+     */
+    @NonCPS
+    protected OpenShiftBuildNameAction getOpenShiftBuildNameAction() {
+        String runId = getenv("JOB_NAME") + "#" + getenv("BUILD_NUMBER");
+        OpenShiftBuildNameAction action = OpenShiftBuildNameAction.getRecent(runId);
+        if (action != null) {
+            return action;
+        }
         try {
             Jenkins activeInstance = Jenkins.getInstance();
             WorkflowJob job = (WorkflowJob) activeInstance.getItemByFullName(getenv("JOB_NAME"));
             WorkflowRun run = job.getBuildByNumber(Integer.parseInt(getenv("BUILD_NUMBER")));
-            Fabric8Commands flow = new Fabric8Commands(this);
-            if (flow.isOpenShift()) {
-                Class clazz;
-                try {
-                    clazz = Thread.currentThread().getContextClassLoader().loadClass("io.fabric8.jenkins.openshiftsync.BuildCause");
-                } catch (ClassNotFoundException e) {
-                    error("Failed to load class BuildCause", e);
-                    return null;
-                }
-                try {
-                    Object cause = run.getCause(clazz);
-                    if (cause != null) {
-                        return (String) PropertyUtils.getProperty(cause, "name");
-                    }
-                } catch (Exception e) {
-                    error("Failed to get openshift BuildCause name:", e);
+            synchronized (run) {
+                action = run.getAction(OpenShiftBuildNameAction.class);
+                if (action == null) {
+                    action = new OpenShiftBuildNameAction(findOpenShiftBuildName(run));
+                    run.addAction(action);
                 }
             }
+            OpenShiftBuildNameAction.putRecent(runId, action);
+            return action;
         } catch (Throwable e) {
             error("Failed to get openshift build name: " + e);
         }
         return null;
     }
 
+    @NonCPS
+    protected String findOpenShiftBuildName(WorkflowRun run) {
+        Fabric8Commands flow = new Fabric8Commands(this);
+        if (flow.isOpenShift()) {
+            Class clazz;
+            try {
+                clazz = Thread.currentThread().getContextClassLoader().loadClass("io.fabric8.jenkins.openshiftsync.BuildCause");
+            } catch (ClassNotFoundException e) {
+                error("Failed to load class BuildCause", e);
+                return null;
+            }
+            try {
+                Object cause = run.getCause(clazz);
+                if (cause != null) {
+                    return (String) PropertyUtils.getProperty(cause, "name");
+                }
+            } catch (Exception e) {
+                error("Failed to get openshift BuildCause name:", e);
+            }
+        }
+        return null;
+    }
+
     public String findGitCloneURL() {
         String text = getGitConfigFile(getCurrentDir());
         if (Strings.isNullOrBlank(text)) {
@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * Describes how often to check a condition in {@link CommandSupport#waitUntil(WaitPolicy, java.util.concurrent.Callable)};
+ * the delay grows exponentially from the initial delay up to the maximum delay, is randomised by the jitter so that
+ * concurrent waiters spread out and the wait gives up once the timeout has passed.
+ */
+public class WaitPolicy implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long initialDelayMillis = 250;
+    private long maxDelayMillis = 250;
+    private double multiplier = 1.0;
+    private double jitter;
+    private long timeoutMillis = -1;
+
+    public WaitPolicy() {
+    }
+
+    public WaitPolicy(long initialDelayMillis, long maxDelayMillis, double multiplier, double jitter, long timeoutMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Returns a policy which waits the same delay between each check
+     */
+    public static WaitPolicy fixed(long delayMillis, long timeoutMillis) {
+        return new WaitPolicy(delayMillis, delayMillis, 1.0, 0.0, timeoutMillis);
+    }
+
+    /**
+     * Returns a policy which doubles the delay between each check up to the maximum with 20% jitter
+     */
+    public static WaitPolicy exponential(long initialDelayMillis, long maxDelayMillis, long timeoutMillis) {
+        return new WaitPolicy(initialDelayMillis, maxDelayMillis, 2.0, 0.2, timeoutMillis);
+    }
+
+    /**
+     * Returns the delay before the next check given the number of checks made so far
+     */
+    public long getDelayMillis(int attempts, Random random) {
+        double delay = initialDelayMillis * Math.pow(Math.max(1.0, multiplier), Math.max(0, attempts - 1));
+        delay = Math.min(delay, Math.max(initialDelayMillis, maxDelayMillis));
+        if (jitter > 0) {
+            delay = delay * (1.0 - jitter + 2.0 * jitter * random.nextDouble());
+        }
+        return Math.max(0L, Math.round(delay));
+    }
+
+    /**
+     * Returns the time at which to give up for a wait starting at the given time or 0 if there is no timeout
+     */
+    public long getDeadline(long startTime) {
+        return timeoutMillis > 0 ? startTime + timeoutMillis : 0L;
+    }
+
+    @Override
+    public String toString() {
+        return "WaitPolicy{" +
+                "initialDelayMillis=" + initialDelayMillis +
+                ", maxDelayMillis=" + maxDelayMillis +
+                ", multiplier=" + multiplier +
+                ", jitter=" + jitter +
+                ", timeoutMillis=" + timeoutMillis +
+                '}';
+    }
+
+    public long getInitialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    public void setInitialDelayMillis(long initialDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public void setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Returns the fraction by which each delay is randomly increased or decreased
+     */
+    public double getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(double jitter) {
+        this.jitter = jitter;
+    }
+
+    /**
+     * Returns the overall time to wait in millis or a value less than 1 to wait forever
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8;
+
+import java.io.Serializable;
+
+/**
+ * The number of checks and the time spent by a call to {@link CommandSupport#waitFor(WaitPolicy, java.util.concurrent.Callable)}
+ */
+public class WaitStatistics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean satisfied;
+    private final int attempts;
+    private final long elapsedMillis;
+    private final long totalCheckMillis;
+    private final long maxCheckMillis;
+
+    public WaitStatistics(boolean satisfied, int attempts, long elapsedMillis, long totalCheckMillis, long maxCheckMillis) {
+        this.satisfied = satisfied;
+        this.attempts = attempts;
+        this.elapsedMillis = elapsedMillis;
+        this.totalCheckMillis = totalCheckMillis;
+        this.maxCheckMillis = maxCheckMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "WaitStatistics{" +
+                "satisfied=" + satisfied +
+                ", attempts=" + attempts +
+                ", elapsedMillis=" + elapsedMillis +
+                ", averageCheckMillis=" + getAverageCheckMillis() +
+                ", maxCheckMillis=" + maxCheckMillis +
+                '}';
+    }
+
+    /**
+     * Returns true if the condition became true or false if the wait timed out
+     */
+    public boolean isSatisfied() {
+        return satisfied;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the total time spent checking the condition excluding the delays between checks
+     */
+    public long getTotalCheckMillis() {
+        return totalCheckMillis;
+    }
+
+    public long getMaxCheckMillis() {
+        return maxCheckMillis;
+    }
+
+    public long getAverageCheckMillis() {
+        return attempts > 0 ? totalCheckMillis / attempts : 0L;
+    }
+}
@@ -0,0 +1,431 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.cache;
+
+import hudson.init.Terminator;
+import jenkins.model.Jenkins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A controller wide cache of external version lookups; such as the latest release of an artifact or whether an
+ * image tag exists; which survives restarts so that builds stop asking Sonatype, Central and the registries
+ * for the same answers.
+ * <p>
+ * Entries are kept in memory with a time to live and evicted least recently used first. Every change is appended
+ * to a log file under <code>JENKINS_HOME</code> which is replayed on first use and rewritten once it holds mostly
+ * stale records.
+ */
+public class VersionCache {
+    private static final Logger LOG = Logger.getLogger(VersionCache.class.getName());
+
+    public static final String FILE_NAME = "fabric8-version-cache.log";
+    public static final int DEFAULT_MAX_ENTRIES = 2048;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final int MIN_COMPACT_RECORDS = 1000;
+
+    private static final String PUT = "P";
+    private static final String REMOVE = "R";
+
+    private static VersionCache instance;
+
+    private final File file;
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private boolean loaded;
+    private Writer writer;
+    private int records;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    /**
+     * Creates a cache persisted to the given file or kept only in memory if the file is null
+     */
+    public VersionCache(File file, int maxEntries) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > VersionCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static synchronized VersionCache getInstance() {
+        if (instance == null) {
+            Jenkins jenkins = Jenkins.getInstanceOrNull();
+            File file = jenkins != null ? new File(jenkins.getRootDir(), FILE_NAME) : null;
+            instance = new VersionCache(file, DEFAULT_MAX_ENTRIES);
+        }
+        return instance;
+    }
+
+    @Terminator
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+        }
+    }
+
+    /**
+     * Returns the cached value of the given key or null if there is none or it has expired
+     */
+    public synchronized String get(String key) {
+        ensureLoaded();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            entries.remove(key);
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached value of the given key or uses the loader to look it up and caches it for the given
+     * time to live. Null values are not cached so failed lookups are retried by the next caller.
+     */
+    public String get(String key, long ttlMillis, Loader loader) throws Exception {
+        String answer = get(key);
+        if (answer != null) {
+            return answer;
+        }
+        loads.incrementAndGet();
+        try {
+            answer = loader.load();
+        } catch (Exception e) {
+            loadFailures.incrementAndGet();
+            throw e;
+        }
+        if (answer != null) {
+            put(key, answer, ttlMillis);
+        }
+        return answer;
+    }
+
+    public synchronized void put(String key, String value, long ttlMillis) {
+        ensureLoaded();
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        entries.put(key, new Entry(key, value, expiresAt));
+        append(PUT, Long.toString(expiresAt), key, value);
+    }
+
+    public synchronized void remove(String key) {
+        ensureLoaded();
+        if (entries.remove(key) != null) {
+            append(REMOVE, key);
+        }
+    }
+
+    public synchronized void clear() {
+        ensureLoaded();
+        entries.clear();
+        compact();
+    }
+
+    /**
+     * Returns a snapshot of the entries which have not expired, most recently used last
+     */
+    public synchronized List<Entry> getEntries() {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        List<Entry> answer = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (!entry.isExpired(now)) {
+                answer.add(entry);
+            }
+        }
+        return answer;
+    }
+
+    public synchronized int getSize() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    public synchronized void close() {
+        closeWriter();
+    }
+
+    protected void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                records++;
+                String[] fields = line.split("\t", -1);
+                try {
+                    if (PUT.equals(fields[0]) && fields.length == 4) {
+                        long expiresAt = Long.parseLong(fields[1]);
+                        String key = unescape(fields[2]);
+                        if (expiresAt > now) {
+                            entries.put(key, new Entry(key, unescape(fields[3]), expiresAt));
+                        } else {
+                            entries.remove(key);
+                        }
+                    } else if (REMOVE.equals(fields[0]) && fields.length == 2) {
+                        entries.remove(unescape(fields[1]));
+                    }
+                } catch (NumberFormatException e) {
+                    // ignore a record truncated by a crash
+                }
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to load " + file + " due to " + e, e);
+        }
+    }
+
+    protected void append(String... fields) {
+        if (file == null) {
+            return;
+        }
+        if (records >= MIN_COMPACT_RECORDS && records > entries.size() * 2) {
+            compact();
+            return;
+        }
+        try {
+            if (writer == null) {
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+            }
+            writeRecord(writer, fields);
+            writer.flush();
+            records++;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to write to " + file + " due to " + e, e);
+            closeWriter();
+        }
+    }
+
+    /**
+     * Rewrites the log with only the live entries
+     */
+    protected void compact() {
+        if (file == null) {
+            return;
+        }
+        closeWriter();
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        long now = System.currentTimeMillis();
+        int count = 0;
+        try {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8))) {
+                for (Entry entry : entries.values()) {
+                    if (!entry.isExpired(now)) {
+                        writeRecord(out, PUT, Long.toString(entry.expiresAt), entry.key, entry.value);
+                        count++;
+                    }
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = count;
+            compactions.incrementAndGet();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to compact " + file + " due to " + e, e);
+        }
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            writer = null;
+        }
+    }
+
+    private static void writeRecord(Writer out, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write('\t');
+            }
+            out.write(escape(fields[i]));
+        }
+        out.write('\n');
+    }
+
+    protected static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    protected static String unescape(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                switch (next) {
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    default:
+                        builder.append(next);
+                }
+            } else {
+                builder.append(ch);
+            }
+        }
+        return builder.toString();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the number of records in the log file including the ones replaced by later records
+     */
+    public synchronized int getRecords() {
+        return records;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of lookups made on a miss
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.get();
+    }
+
+    public long getCompactions() {
+        return compactions.get();
+    }
+
+    /**
+     * Looks up a value which is not in the cache
+     */
+    public interface Loader {
+        String load() throws Exception;
+    }
+
+    /**
+     * A cached value
+     */
+    public static class Entry {
+        private final String key;
+        private final String value;
+        private final long expiresAt;
+
+        public Entry(String key, String value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "key='" + key + '\'' +
+                    ", value='" + value + '\'' +
+                    ", expiresAt=" + expiresAt +
+                    '}';
+        }
+
+        public boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public Date getExpiryDate() {
+            return new Date(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.cache;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Shows the entries and hit rates of the {@link VersionCache} under <em>Manage Jenkins</em>
+ */
+@Extension
+public class VersionCacheManagementLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "folder.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Fabric8 Version Cache";
+    }
+
+    @Override
+    public String getDescription() {
+        return "The versions and image tags looked up by fabric8 pipelines which are shared by all builds";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "fabric8-version-cache";
+    }
+
+    public VersionCache getCache() {
+        return VersionCache.getInstance();
+    }
+
+    @RequirePOST
+    public HttpResponse doClear() {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        getCache().clear();
+        return HttpResponses.redirectToDot();
+    }
+}
@@ -0,0 +1,458 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.docker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.utils.Strings;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.codec.binary.Base64;
+import org.jenkinsci.plugins.fabric8.cache.VersionCache;
+import org.jenkinsci.plugins.fabric8.repository.ArtifactProbe;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A client for the <a href="https://docs.docker.com/registry/spec/api/">Docker Registry HTTP API v2</a> which
+ * works against Docker Hub and the <code>fabric8-docker-registry</code> service.
+ * <p>
+ * Bearer tokens are requested from the realm of the registry's <code>WWW-Authenticate</code> challenge and reused
+ * per scope until they expire. Tag lists are paged through <code>tags/list</code> and cached per repository;
+ * checking a single tag only costs a <code>HEAD</code> of its manifest.
+ */
+public class DockerRegistryClient {
+    public static final String DOCKER_HUB_URL = "https://registry-1.docker.io";
+    public static final String MANIFEST_MEDIA_TYPES = "application/vnd.docker.distribution.manifest.v2+json, " +
+            "application/vnd.docker.distribution.manifest.list.v2+json, " +
+            "application/vnd.docker.distribution.manifest.v1+prettyjws";
+    public static final int PAGE_SIZE = 100;
+    public static final int MAX_CACHED_REPOSITORIES = 256;
+    public static final long DEFAULT_TAGS_REVALIDATE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    public static final long DEFAULT_TOKEN_EXPIRY_SECONDS = 60;
+    public static final long TAG_EXISTS_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    public static final long DIGEST_CACHE_TTL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String CACHED_TAG_EXISTS = "exists";
+    private static final Pattern challengeParameterPattern = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+    private static final Pattern nextLinkPattern = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"?next\"?");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ConcurrentMap<String, DockerRegistryClient> clients = new ConcurrentHashMap<>();
+
+    private final String registryUrl;
+    private final boolean dockerHub;
+    private final String basicAuthorization;
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+    private final Map<String, TagsEntry> tags = new LinkedHashMap<String, TagsEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TagsEntry> eldest) {
+            return size() > MAX_CACHED_REPOSITORIES;
+        }
+    };
+    private final AtomicLong tagListHits = new AtomicLong();
+    private final AtomicLong tagListFetches = new AtomicLong();
+    private final AtomicLong manifestRequests = new AtomicLong();
+    private long tagsRevalidateMillis = DEFAULT_TAGS_REVALIDATE_MILLIS;
+
+    public DockerRegistryClient(String registryUrl, String username, String password) {
+        this.registryUrl = Strings.stripSuffix(registryUrl, "/");
+        this.dockerHub = DOCKER_HUB_URL.equals(this.registryUrl);
+        if (Strings.notEmpty(username) && Strings.notEmpty(password)) {
+            this.basicAuthorization = "Basic " + Base64.encodeBase64String((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        } else {
+            this.basicAuthorization = null;
+        }
+    }
+
+    /**
+     * Returns the shared anonymous client for Docker Hub
+     */
+    public static DockerRegistryClient dockerHub() {
+        return getInstance(DOCKER_HUB_URL);
+    }
+
+    /**
+     * Returns the shared anonymous client for the registry at the given host and port. Registries on port 443
+     * are accessed over https and all others over http like the in cluster <code>fabric8-docker-registry</code>
+     */
+    public static DockerRegistryClient forRegistry(String host, String port) {
+        String scheme = "443".equals(port) ? "https" : "http";
+        return getInstance(scheme + "://" + host + ":" + port);
+    }
+
+    /**
+     * Returns the shared anonymous client for the given registry URL
+     */
+    public static DockerRegistryClient getInstance(String registryUrl) {
+        return clients.computeIfAbsent(Strings.stripSuffix(registryUrl, "/"), url -> new DockerRegistryClient(url, null, null));
+    }
+
+    /**
+     * Returns the repository name used by the registry API; images on Docker Hub without an organisation
+     * are in the <code>library</code> organisation
+     */
+    public static String toRepositoryName(String image, boolean dockerHub) {
+        String answer = image;
+        int idx = answer.indexOf('@');
+        if (idx > 0) {
+            answer = answer.substring(0, idx);
+        }
+        idx = answer.lastIndexOf(':');
+        if (idx > answer.lastIndexOf('/')) {
+            answer = answer.substring(0, idx);
+        }
+        if (dockerHub && answer.indexOf('/') < 0) {
+            answer = "library/" + answer;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the URL of the next page from an RFC 5988 <code>Link</code> header or null if there is none
+     */
+    public static String parseNextLink(String linkHeader) {
+        if (linkHeader != null) {
+            Matcher matcher = nextLinkPattern.matcher(linkHeader);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a <code>WWW-Authenticate</code> challenge such as
+     * <code>Bearer realm="https://auth.docker.io/token",service="registry.docker.io"</code>
+     */
+    public static AuthChallenge parseChallenge(String header) {
+        if (Strings.isNullOrBlank(header)) {
+            return null;
+        }
+        String text = header.trim();
+        int idx = text.indexOf(' ');
+        String scheme = idx > 0 ? text.substring(0, idx) : text;
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (idx > 0) {
+            Matcher matcher = challengeParameterPattern.matcher(text.substring(idx + 1));
+            while (matcher.find()) {
+                parameters.put(matcher.group(1), matcher.group(2));
+            }
+        }
+        return new AuthChallenge(scheme, parameters);
+    }
+
+    /**
+     * Returns the tags in the format of the old v1 <code>repositories/{image}/tags</code> API; an array of
+     * <code>{"layer", "name"}</code> objects. The v2 API does not return layers so they are left empty.
+     */
+    public static String toV1TagsJson(List<String> tags) throws IOException {
+        ArrayNode answer = objectMapper.createArrayNode();
+        for (String tag : tags) {
+            ObjectNode node = answer.addObject();
+            node.put("layer", "");
+            node.put("name", tag);
+        }
+        return objectMapper.writeValueAsString(answer);
+    }
+
+    /**
+     * Returns all the tags of the given image, using the cached list if it was fetched recently
+     *
+     * @throws FileNotFoundException if the repository does not exist
+     */
+    public List<String> getTags(String image) throws IOException {
+        String repository = toRepositoryName(image, dockerHub);
+        TagsEntry entry;
+        synchronized (tags) {
+            entry = tags.get(repository);
+        }
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.checkedTime < tagsRevalidateMillis) {
+            tagListHits.incrementAndGet();
+            return entry.tags;
+        }
+        tagListFetches.incrementAndGet();
+        List<String> answer = new ArrayList<>();
+        String scope = pullScope(repository);
+        String url = registryUrl + "/v2/" + repository + "/tags/list?n=" + PAGE_SIZE;
+        while (url != null) {
+            Request request = new Request.Builder().url(url).get().build();
+            try (Response response = execute(request, scope)) {
+                if (response.code() == 404) {
+                    throw new FileNotFoundException(registryUrl + "/" + repository);
+                }
+                if (!response.isSuccessful()) {
+                    throw new IOException("Failed to list tags of " + repository + " on " + registryUrl + " status: " + response.code());
+                }
+                try (InputStream in = response.body().byteStream()) {
+                    JsonNode page = objectMapper.readTree(in).get("tags");
+                    if (page != null) {
+                        for (JsonNode tag : page) {
+                            answer.add(tag.asText());
+                        }
+                    }
+                }
+                String next = parseNextLink(response.header("Link"));
+                HttpUrl nextUrl = next != null ? response.request().url().resolve(next) : null;
+                url = nextUrl != null ? nextUrl.toString() : null;
+            }
+        }
+        List<String> result = Collections.unmodifiableList(answer);
+        synchronized (tags) {
+            tags.put(repository, new TagsEntry(result, now));
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the manifest of the given tag with a single <code>HEAD</code> request returning its digest if it exists
+     */
+    public TagLookup lookupTag(String image, String tag) {
+        String repository = toRepositoryName(image, dockerHub);
+        manifestRequests.incrementAndGet();
+        Request request = new Request.Builder().url(registryUrl + "/v2/" + repository + "/manifests/" + tag).head().
+                header("Accept", MANIFEST_MEDIA_TYPES).build();
+        try (Response response = execute(request, pullScope(repository))) {
+            return TagLookup.fromStatusCode(repository, tag, response.code(), response.header("Docker-Content-Digest"));
+        } catch (IOException e) {
+            return new TagLookup(repository, tag, TagLookup.Status.ERROR, null, e.toString());
+        }
+    }
+
+    /**
+     * Returns true if the given tag of the image exists
+     */
+    public boolean tagExists(String image, String tag) {
+        return lookupTag(image, tag).isFound();
+    }
+
+    /**
+     * Looks up the given tag remembering in the {@link VersionCache} that it exists so that later builds do not
+     * ask again. Tags can be moved or deleted so only their existence is kept and only for a few minutes; the
+     * digest is only kept when the manifest is addressed by its digest as that can never change.
+     * Missing tags and failed lookups are not cached.
+     */
+    public TagLookup lookupTagCached(String image, String tag) {
+        String repository = toRepositoryName(image, dockerHub);
+        String key = "docker-tag-exists:" + registryUrl + "/" + repository + ":" + tag;
+        boolean digestReference = isDigest(tag);
+        String cached = VersionCache.getInstance().get(key);
+        if (cached != null) {
+            return new TagLookup(repository, tag, TagLookup.Status.FOUND, digestReference ? cached : null, "cached");
+        }
+        TagLookup answer = lookupTag(image, tag);
+        if (answer.isFound()) {
+            if (digestReference) {
+                VersionCache.getInstance().put(key, tag, DIGEST_CACHE_TTL_MILLIS);
+            } else {
+                VersionCache.getInstance().put(key, CACHED_TAG_EXISTS, TAG_EXISTS_CACHE_TTL_MILLIS);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns true if the given reference is a content digest such as <code>sha256:...</code> rather than a tag
+     */
+    public static boolean isDigest(String reference) {
+        return reference != null && reference.indexOf(':') > 0;
+    }
+
+    /**
+     * Removes the cached tag list of the given image; for example after pushing a new tag
+     */
+    public void invalidate(String image) {
+        synchronized (tags) {
+            tags.remove(toRepositoryName(image, dockerHub));
+        }
+    }
+
+    protected Response execute(Request request, String scope) throws IOException {
+        OkHttpClient httpClient = ArtifactProbe.getInstance().getHttpClient();
+        Token token = tokens.get(scope);
+        String authorization = token != null && !token.isExpired() ? "Bearer " + token.value : basicAuthorization;
+        Response response = httpClient.newCall(withAuthorization(request, authorization)).execute();
+        if (response.code() != 401) {
+            return response;
+        }
+        AuthChallenge challenge = parseChallenge(response.header("WWW-Authenticate"));
+        if (challenge == null) {
+            return response;
+        }
+        if ("Bearer".equalsIgnoreCase(challenge.getScheme()) && challenge.getParameter("realm") != null) {
+            response.close();
+            token = fetchToken(challenge, scope);
+            tokens.put(scope, token);
+            return httpClient.newCall(withAuthorization(request, "Bearer " + token.value)).execute();
+        }
+        if ("Basic".equalsIgnoreCase(challenge.getScheme()) && basicAuthorization != null && authorization == null) {
+            response.close();
+            return httpClient.newCall(withAuthorization(request, basicAuthorization)).execute();
+        }
+        return response;
+    }
+
+    protected Token fetchToken(AuthChallenge challenge, String scope) throws IOException {
+        HttpUrl realm = HttpUrl.parse(challenge.getParameter("realm"));
+        if (realm == null) {
+            throw new IOException("Invalid token realm in challenge " + challenge);
+        }
+        HttpUrl.Builder url = realm.newBuilder();
+        String service = challenge.getParameter("service");
+        if (service != null) {
+            url.addQueryParameter("service", service);
+        }
+        url.addQueryParameter("scope", scope);
+        Request request = withAuthorization(new Request.Builder().url(url.build()).get().build(), basicAuthorization);
+        try (Response response = ArtifactProbe.getInstance().getHttpClient().newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to get a token for " + scope + " from " + realm + " status: " + response.code());
+            }
+            JsonNode json;
+            try (InputStream in = response.body().byteStream()) {
+                json = objectMapper.readTree(in);
+            }
+            JsonNode value = json.has("token") ? json.get("token") : json.get("access_token");
+            if (value == null) {
+                throw new IOException("No token returned for " + scope + " from " + realm);
+            }
+            long expiresIn = json.has("expires_in") ? json.get("expires_in").asLong() : DEFAULT_TOKEN_EXPIRY_SECONDS;
+            // lets renew a little early so a token does not expire between the check and the request
+            long expiry = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Math.max(expiresIn - 10, 0));
+            return new Token(value.asText(), expiry);
+        }
+    }
+
+    private static Request withAuthorization(Request request, String authorization) {
+        if (authorization == null) {
+            return request;
+        }
+        return request.newBuilder().header("Authorization", authorization).build();
+    }
+
+    private static String pullScope(String repository) {
+        return "repository:" + repository + ":pull";
+    }
+
+    public String getRegistryUrl() {
+        return registryUrl;
+    }
+
+    public boolean isDockerHub() {
+        return dockerHub;
+    }
+
+    /**
+     * Returns the number of tag lists answered from the cache
+     */
+    public long getTagListHits() {
+        return tagListHits.get();
+    }
+
+    /**
+     * Returns the number of tag lists fetched from the registry
+     */
+    public long getTagListFetches() {
+        return tagListFetches.get();
+    }
+
+    public long getManifestRequests() {
+        return manifestRequests.get();
+    }
+
+    public long getTagsRevalidateMillis() {
+        return tagsRevalidateMillis;
+    }
+
+    public void setTagsRevalidateMillis(long tagsRevalidateMillis) {
+        this.tagsRevalidateMillis = tagsRevalidateMillis;
+    }
+
+    /**
+     * A parsed <code>WWW-Authenticate</code> header
+     */
+    public static class AuthChallenge {
+        private final String scheme;
+        private final Map<String, String> parameters;
+
+        public AuthChallenge(String scheme, Map<String, String> parameters) {
+            this.scheme = scheme;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public String toString() {
+            return "AuthChallenge{" +
+                    "scheme='" + scheme + '\'' +
+                    ", parameters=" + parameters +
+                    '}';
+        }
+
+        public String getScheme() {
+            return scheme;
+        }
+
+        public String getParameter(String name) {
+            return parameters.get(name);
+        }
+
+        public Map<String, String> getParameters() {
+            return Collections.unmodifiableMap(parameters);
+        }
+    }
+
+    protected static class Token {
+        private final String value;
+        private final long expiry;
+
+        public Token(String value, long expiry) {
+            this.value = value;
+            this.expiry = expiry;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiry;
+        }
+    }
+
+    protected static class TagsEntry {
+        private final List<String> tags;
+        private final long checkedTime;
+
+        public TagsEntry(List<String> tags, long checkedTime) {
+            this.tags = tags;
+            this.checkedTime = checkedTime;
+        }
+    }
+}
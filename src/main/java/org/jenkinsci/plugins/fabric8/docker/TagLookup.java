@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.docker;
+
+import java.io.Serializable;
+
+/**
+ * The result of looking up a tag of an image in a docker registry
+ */
+public class TagLookup implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        UNAUTHORIZED,
+        ERROR
+    }
+
+    private final String repository;
+    private final String tag;
+    private final Status status;
+    private final String digest;
+    private final String message;
+
+    public TagLookup(String repository, String tag, Status status, String digest, String message) {
+        this.repository = repository;
+        this.tag = tag;
+        this.status = status;
+        this.digest = digest;
+        this.message = message;
+    }
+
+    public static TagLookup fromStatusCode(String repository, String tag, int statusCode, String digest) {
+        Status status;
+        if (statusCode >= 200 && statusCode < 300) {
+            status = Status.FOUND;
+        } else if (statusCode == 404) {
+            status = Status.NOT_FOUND;
+        } else if (statusCode == 401 || statusCode == 403) {
+            status = Status.UNAUTHORIZED;
+        } else {
+            status = Status.ERROR;
+        }
+        return new TagLookup(repository, tag, status, digest, "HTTP " + statusCode);
+    }
+
+    @Override
+    public String toString() {
+        return "TagLookup{" +
+                "repository='" + repository + '\'' +
+                ", tag='" + tag + '\'' +
+                ", status=" + status +
+                ", digest='" + digest + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the content digest of the manifest such as <code>sha256:...</code> or null if it is not known
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
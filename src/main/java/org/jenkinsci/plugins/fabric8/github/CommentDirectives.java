@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The directives found in the comments of a pull request such as:
+ * <ul>
+ * <li><code>@fabric8cd CI skip deploy=true</code></li>
+ * <li><code>@fabric8cd CI downstream projects [fabric8-ui=myorg]</code></li>
+ * </ul>
+ * along with which of a set of exact comments have been seen.
+ * <p>
+ * Comments are expected newest first so the first directive of each kind wins and
+ * {@link #accept(String)} returns true once the wanted directives and comments have all been found.
+ */
+public class CommentDirectives {
+    public static final String SKIP_DEPLOY_TRUE = "CI skip deploy=true";
+    public static final String SKIP_DEPLOY_FALSE = "CI skip deploy=false";
+    public static final String DOWNSTREAM_PROJECTS = "CI downstream projects";
+
+    /**
+     * The kinds of directive which can be looked for
+     */
+    public enum Directive {
+        SKIP_DEPLOY, DOWNSTREAM_PROJECTS
+    }
+
+    private final String botName;
+    private final Set<Directive> wantedDirectives = EnumSet.noneOf(Directive.class);
+    private final Set<String> wantedComments = new LinkedHashSet<>();
+    private final Set<String> foundComments = new LinkedHashSet<>();
+    private Boolean skipDeploy;
+    private Map<String, String> downstreamProjectOverrides;
+    private int scannedCount;
+
+    /**
+     * Looks for all the directives of the given bot, if any, and the given comments
+     */
+    public CommentDirectives(String botName, Collection<String> wantedComments) {
+        this(botName, EnumSet.allOf(Directive.class), wantedComments);
+    }
+
+    public CommentDirectives(String botName, Collection<Directive> wantedDirectives, Collection<String> wantedComments) {
+        this.botName = botName;
+        if (botName != null) {
+            this.wantedDirectives.addAll(wantedDirectives);
+        }
+        for (String comment : wantedComments) {
+            this.wantedComments.add(normalize(comment));
+        }
+    }
+
+    /**
+     * Processes the body of the next newest comment
+     *
+     * @return true if all the directives and wanted comments have been found so older comments can be ignored
+     */
+    public boolean accept(String body) {
+        scannedCount++;
+        if (body == null) {
+            return isComplete();
+        }
+        String text = body.trim();
+        String normalized = normalize(text);
+        if (wantedComments.contains(normalized)) {
+            foundComments.add(normalized);
+        }
+        if (botName != null && text.startsWith(botName)) {
+            if (skipDeploy == null) {
+                if (text.contains(SKIP_DEPLOY_TRUE)) {
+                    skipDeploy = true;
+                } else if (text.contains(SKIP_DEPLOY_FALSE)) {
+                    skipDeploy = false;
+                }
+            }
+            if (downstreamProjectOverrides == null && text.contains(DOWNSTREAM_PROJECTS)) {
+                downstreamProjectOverrides = parseDownstreamProjectOverrides(text);
+            }
+        }
+        return isComplete();
+    }
+
+    /**
+     * Returns true if all the wanted directives and comments have been found
+     */
+    public boolean isComplete() {
+        if (wantedDirectives.contains(Directive.SKIP_DEPLOY) && skipDeploy == null) {
+            return false;
+        }
+        if (wantedDirectives.contains(Directive.DOWNSTREAM_PROJECTS) && downstreamProjectOverrides == null) {
+            return false;
+        }
+        return foundComments.size() == wantedComments.size();
+    }
+
+    /**
+     * Parses the <code>[project=override, ...]</code> list of a downstream projects directive
+     */
+    public static Map<String, String> parseDownstreamProjectOverrides(String text) {
+        Map<String, String> answer = new LinkedHashMap<>();
+        int start = text.indexOf('[');
+        int end = text.indexOf(']', start + 1);
+        if (start < 0 || end < 0) {
+            return answer;
+        }
+        for (String entry : text.substring(start + 1, end).split(",")) {
+            int idx = entry.indexOf('=');
+            if (idx > 0) {
+                String key = entry.substring(0, idx).trim();
+                String value = entry.substring(idx + 1).trim();
+                if (!key.isEmpty() && !value.isEmpty()) {
+                    answer.put(key, value);
+                }
+            }
+        }
+        return answer;
+    }
+
+    @Override
+    public String toString() {
+        return "CommentDirectives{" +
+                "skipDeploy=" + skipDeploy +
+                ", downstreamProjectOverrides=" + downstreamProjectOverrides +
+                ", foundComments=" + foundComments +
+                ", scannedCount=" + scannedCount +
+                '}';
+    }
+
+    /**
+     * Returns the newest skip deploy directive or null if there is none
+     */
+    public Boolean getSkipDeploy() {
+        return skipDeploy;
+    }
+
+    /**
+     * Returns the overrides of the newest downstream projects directive or an empty map if there is none
+     */
+    public Map<String, String> getDownstreamProjectOverrides() {
+        if (downstreamProjectOverrides == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(downstreamProjectOverrides);
+    }
+
+    /**
+     * Returns true if a comment matching the given text ignoring case has been found
+     */
+    public boolean hasComment(String comment) {
+        return foundComments.contains(normalize(comment));
+    }
+
+    public String getBotName() {
+        return botName;
+    }
+
+    public Set<Directive> getWantedDirectives() {
+        return Collections.unmodifiableSet(wantedDirectives);
+    }
+
+    public int getScannedCount() {
+        return scannedCount;
+    }
+
+    protected static String normalize(String comment) {
+        return comment != null ? comment.trim().toLowerCase() : "";
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scans the comments of a pull request for {@link CommentDirectives} starting from the newest comment
+ * and stopping as soon as everything being looked for has been found.
+ * <p>
+ * The results are cached by the id and update time of the newest comment and the update time of the pull request
+ * so that scanning again only costs the requests needed to find them until someone comments on the pull request.
+ */
+public class CommentScanner {
+    public static final int PAGE_SIZE = 100;
+    public static final int MAX_CACHED_SCANS = 512;
+
+    private static final CommentScanner instance = new CommentScanner();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, CommentDirectives> cache = new LinkedHashMap<String, CommentDirectives>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CommentDirectives> eldest) {
+            return size() > MAX_CACHED_SCANS;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong pagesFetched = new AtomicLong();
+
+    public static CommentScanner getInstance() {
+        return instance;
+    }
+
+    /**
+     * Scans the comments of the given pull request or issue newest first
+     *
+     * @param botName          the prefix of comments containing directives such as <code>@fabric8cd</code>
+     * @param wantedDirectives the kinds of directive to look for
+     * @param wantedComments   the exact comments, ignoring case, to look for
+     */
+    public CommentDirectives scan(GitHub gitHub, String project, int number, String botName, Collection<CommentDirectives.Directive> wantedDirectives, Collection<String> wantedComments) throws IOException {
+        String issuePath = "repos/" + project + "/issues/" + number;
+        JsonNode issue = getJson(gitHub, issuePath);
+        int count = issue.path("comments").asInt(0);
+        if (count <= 0) {
+            return new CommentDirectives(botName, wantedDirectives, wantedComments);
+        }
+        int page = (count + PAGE_SIZE - 1) / PAGE_SIZE;
+        JsonNode comments = getCommentsPage(gitHub, issuePath, page);
+        // comments may have been deleted since we read the count
+        while (comments.size() == 0 && page > 1) {
+            comments = getCommentsPage(gitHub, issuePath, --page);
+        }
+        if (comments.size() == 0) {
+            return new CommentDirectives(botName, wantedDirectives, wantedComments);
+        }
+        JsonNode newest = comments.get(comments.size() - 1);
+        String key = project + "#" + number + "@" + newest.path("id").asLong() + "/" + newest.path("updated_at").asText("") +
+                "/" + issue.path("updated_at").asText("") + "|" + botName + "|" + new TreeSet<>(wantedDirectives) + "|" + new TreeSet<>(wantedComments);
+        synchronized (cache) {
+            CommentDirectives cached = cache.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        CommentDirectives directives = new CommentDirectives(botName, wantedDirectives, wantedComments);
+        boolean complete = false;
+        while (!complete) {
+            for (int i = comments.size() - 1; i >= 0 && !complete; i--) {
+                complete = directives.accept(comments.get(i).path("body").asText(null));
+            }
+            if (complete || --page < 1) {
+                break;
+            }
+            comments = getCommentsPage(gitHub, issuePath, page);
+        }
+        synchronized (cache) {
+            cache.put(key, directives);
+        }
+        return directives;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getPagesFetched() {
+        return pagesFetched.get();
+    }
+
+    protected JsonNode getCommentsPage(GitHub gitHub, String issuePath, int page) throws IOException {
+        pagesFetched.incrementAndGet();
+        return getJson(gitHub, issuePath + "/comments?per_page=" + PAGE_SIZE + "&page=" + page);
+    }
+
+    protected JsonNode getJson(GitHub gitHub, String path) throws IOException {
+        GitHubClients clients = GitHubClients.getInstance();
+        Request request = clients.newRequest(gitHub, path).build();
+        try (Response response = clients.getHttpClient().newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to GET " + request.url() + " status: " + response.code());
+            }
+            try (InputStream in = response.body().byteStream()) {
+                return objectMapper.readTree(in);
+            }
+        }
+    }
+}
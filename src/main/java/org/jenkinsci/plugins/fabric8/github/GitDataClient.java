@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Reads and changes single files in GitHub repositories using the contents and git data APIs so that
+ * small changes such as a version bump in a <code>pom.xml</code> do not require cloning the repository.
+ * <p>
+ * A change is committed on a new branch with one request for the tree, one for the commit and one for the ref.
+ */
+public class GitDataClient {
+    public static final int PAGE_SIZE = 100;
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final GitHub gitHub;
+
+    public GitDataClient(GitHub gitHub) {
+        this.gitHub = gitHub;
+    }
+
+    /**
+     * Returns the repositories of the given organisation which are not archived
+     */
+    public List<Repository> getOrganisationRepositories(String organisation) throws IOException {
+        List<Repository> answer = new ArrayList<>();
+        for (int page = 1; ; page++) {
+            JsonNode repos = getJson("orgs/" + organisation + "/repos?per_page=" + PAGE_SIZE + "&page=" + page);
+            for (JsonNode repo : repos) {
+                if (!repo.path("archived").asBoolean(false)) {
+                    answer.add(Repository.fromJson(repo));
+                }
+            }
+            if (repos.size() < PAGE_SIZE) {
+                return answer;
+            }
+        }
+    }
+
+    public Repository getRepository(String project) throws IOException {
+        return Repository.fromJson(getJson("repos/" + project));
+    }
+
+    /**
+     * Returns the head commit of the given branch
+     */
+    public Commit getBranchHead(String project, String branch) throws IOException {
+        JsonNode commit = getJson("repos/" + project + "/branches/" + branch).path("commit");
+        return new Commit(commit.path("sha").asText(), commit.path("commit").path("tree").path("sha").asText());
+    }
+
+    /**
+     * Returns the text of the file at the given commit or null if it does not exist
+     */
+    public String getFileContent(String project, String path, String ref) throws IOException {
+        JsonNode file = getJsonOrNull("repos/" + project + "/contents/" + path + "?ref=" + ref);
+        if (file == null || !"file".equals(file.path("type").asText())) {
+            return null;
+        }
+        byte[] data = Base64.getMimeDecoder().decode(file.path("content").asText(""));
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Commits the new content of a file on top of the given commit and creates a branch pointing at it
+     *
+     * @return the sha of the new commit
+     */
+    public String commitFileOnNewBranch(String project, Commit base, String path, String content, String message, String branch) throws IOException {
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("path", path);
+        entry.put("mode", "100644");
+        entry.put("type", "blob");
+        entry.put("content", content);
+        ObjectNode tree = objectMapper.createObjectNode();
+        tree.put("base_tree", base.getTreeSha());
+        tree.putArray("tree").add(entry);
+        String treeSha = postJson("repos/" + project + "/git/trees", tree).path("sha").asText();
+
+        ObjectNode commit = objectMapper.createObjectNode();
+        commit.put("message", message);
+        commit.put("tree", treeSha);
+        commit.putArray("parents").add(base.getSha());
+        String commitSha = postJson("repos/" + project + "/git/commits", commit).path("sha").asText();
+
+        ObjectNode ref = objectMapper.createObjectNode();
+        ref.put("ref", "refs/heads/" + branch);
+        ref.put("sha", commitSha);
+        postJson("repos/" + project + "/git/refs", ref);
+        return commitSha;
+    }
+
+    protected JsonNode getJson(String path) throws IOException {
+        JsonNode answer = getJsonOrNull(path);
+        if (answer == null) {
+            throw new IOException("Could not find " + path);
+        }
+        return answer;
+    }
+
+    protected JsonNode getJsonOrNull(String path) throws IOException {
+        GitHubClients clients = GitHubClients.getInstance();
+        Request request = clients.newRequest(gitHub, path).build();
+        try (Response response = clients.getHttpClient().newCall(request).execute()) {
+            if (response.code() == 404) {
+                return null;
+            }
+            return readJson(request, response);
+        }
+    }
+
+    protected JsonNode postJson(String path, JsonNode body) throws IOException {
+        GitHubClients clients = GitHubClients.getInstance();
+        Request request = clients.newRequest(gitHub, path)
+                .removeHeader("Cache-Control")
+                .post(RequestBody.create(JSON, objectMapper.writeValueAsBytes(body)))
+                .build();
+        try (Response response = clients.getHttpClient().newCall(request).execute()) {
+            return readJson(request, response);
+        }
+    }
+
+    private static JsonNode readJson(Request request, Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new IOException("Failed to " + request.method() + " " + request.url() + " status: " + response.code() + " " + response.body().string());
+        }
+        try (InputStream in = response.body().byteStream()) {
+            return objectMapper.readTree(in);
+        }
+    }
+
+    /**
+     * The name and default branch of a repository
+     */
+    public static class Repository {
+        private final String fullName;
+        private final String defaultBranch;
+
+        public Repository(String fullName, String defaultBranch) {
+            this.fullName = fullName;
+            this.defaultBranch = defaultBranch;
+        }
+
+        public static Repository fromJson(JsonNode repo) {
+            return new Repository(repo.path("full_name").asText(), repo.path("default_branch").asText("master"));
+        }
+
+        @Override
+        public String toString() {
+            return fullName;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public String getDefaultBranch() {
+            return defaultBranch;
+        }
+    }
+
+    /**
+     * A commit and its tree
+     */
+    public static class Commit {
+        private final String sha;
+        private final String treeSha;
+
+        public Commit(String sha, String treeSha) {
+            this.sha = sha;
+            this.treeSha = treeSha;
+        }
+
+        public String getSha() {
+            return sha;
+        }
+
+        public String getTreeSha() {
+            return treeSha;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import hudson.init.Terminator;
+import io.fabric8.kubernetes.client.utils.URLUtils;
+import io.fabric8.utils.IOHelpers;
+import io.fabric8.utils.Strings;
+import jenkins.model.Jenkins;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.OkUrlFactory;
+import okhttp3.Request;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.extras.OkHttp3Connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pool of {@link GitHub} clients keyed by their credentials.
+ * <p>
+ * All the clients share one OkHttp client with an on disk HTTP response cache so that repeated requests
+ * are sent with <code>If-None-Match</code> and GitHub can reply with a <code>304 Not Modified</code> which
+ * does not count against the rate limit.
+ */
+public class GitHubClients {
+    private static final Logger LOG = Logger.getLogger(GitHubClients.class.getName());
+
+    public static final long DEFAULT_CACHE_SIZE = 50L * 1024 * 1024;
+
+    private static final GitHubClients instance = new GitHubClients();
+
+    private final ConcurrentMap<String, GitHub> clients = new ConcurrentHashMap<>();
+    private final Map<GitHub, String> credentialKeys = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<GitHub, String> authorizations = Collections.synchronizedMap(new WeakHashMap<>());
+    private final ConcurrentMap<String, TokenFile> tokenFiles = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile OkHttpClient httpClient;
+
+    public static GitHubClients getInstance() {
+        return instance;
+    }
+
+    @Terminator
+    public static void shutdown() {
+        getInstance().close();
+    }
+
+    /**
+     * Returns the shared client for the given credentials. If a user and password are specified they are
+     * used, otherwise the OAuth token is used if present, otherwise an anonymous client is returned.
+     */
+    public GitHub getGitHub(String user, String password, String oauthToken) throws IOException {
+        String key = DigestUtils.sha256Hex(Strings.defaultIfEmpty(user, "") + "|" +
+                Strings.defaultIfEmpty(password, "") + "|" + Strings.defaultIfEmpty(oauthToken, ""));
+        GitHub answer = clients.get(key);
+        if (answer != null) {
+            hits.incrementAndGet();
+            return answer;
+        }
+        misses.incrementAndGet();
+        GitHubBuilder ghb = new GitHubBuilder();
+        if (Strings.isNotBlank(user) && Strings.isNotBlank(password)) {
+            ghb.withPassword(user, password);
+        } else if (Strings.notEmpty(oauthToken)) {
+            if (Strings.notEmpty(user)) {
+                ghb.withOAuthToken(oauthToken, user);
+            } else {
+                ghb.withOAuthToken(oauthToken);
+            }
+        }
+        ghb.withConnector(new OkHttp3Connector(new OkUrlFactory(getHttpClient())));
+        answer = ghb.build();
+        GitHub existing = clients.putIfAbsent(key, answer);
+        if (existing != null) {
+            return existing;
+        }
+        String authorization = authorizationHeader(user, password, oauthToken);
+        credentialKeys.put(answer, GitHubRateLimits.credentialKey(authorization));
+        if (authorization != null) {
+            authorizations.put(answer, authorization);
+        }
+        return answer;
+    }
+
+    /**
+     * Creates a request for the given path of the GitHub REST API using the credentials of the given client.
+     * Use {@link #getHttpClient()} to send it so that it is cached, scheduled and rate limit tracked
+     * like the requests of the client itself.
+     */
+    public Request.Builder newRequest(GitHub gitHub, String path) {
+        Request.Builder builder = new Request.Builder().url(URLUtils.join(gitHub.getApiUrl(), path));
+        builder.header("Accept", "application/vnd.github.v3+json");
+        // lets revalidate cached responses like the github-api connector does
+        builder.header("Cache-Control", "max-age=0");
+        String authorization = authorizations.get(gitHub);
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder;
+    }
+
+    /**
+     * Returns the last known rate limit of the credential of the given client or null if it is not yet known
+     */
+    public GitHubRateLimits.RateLimit getRateLimit(GitHub gitHub) {
+        String key = credentialKeys.get(gitHub);
+        if (key == null) {
+            return null;
+        }
+        return GitHubRateLimits.getInstance().getRateLimit(key);
+    }
+
+    /**
+     * Returns the trimmed contents of the given token file; only reading it again if it has been modified
+     */
+    public String loadTokenFile(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        TokenFile tokenFile = tokenFiles.get(path);
+        if (tokenFile == null || tokenFile.getLastModified() != lastModified) {
+            tokenFile = new TokenFile(IOHelpers.readFully(file).trim(), lastModified);
+            tokenFiles.put(path, tokenFile);
+        }
+        return tokenFile.getToken();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the HTTP response cache or null if it could not be created
+     */
+    public Cache getCache() {
+        return getHttpClient().cache();
+    }
+
+    public synchronized void close() {
+        clients.clear();
+        credentialKeys.clear();
+        authorizations.clear();
+        tokenFiles.clear();
+        if (httpClient != null) {
+            Cache cache = httpClient.cache();
+            if (cache != null) {
+                try {
+                    cache.close();
+                } catch (IOException e) {
+                    LOG.log(Level.FINE, "Failed to close GitHub HTTP cache due to " + e, e);
+                }
+            }
+            httpClient = null;
+        }
+    }
+
+    public synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            OkHttpClient.Builder builder = new OkHttpClient.Builder();
+            builder.addInterceptor(GitHubRequestScheduler.getInstance());
+            builder.addNetworkInterceptor(GitHubRateLimits.getInstance());
+            File cacheDir = getCacheDir();
+            if (cacheDir != null) {
+                builder.cache(new Cache(cacheDir, DEFAULT_CACHE_SIZE));
+            }
+            httpClient = builder.build();
+        }
+        return httpClient;
+    }
+
+    /**
+     * Returns the <code>Authorization</code> header github-api sends for the given credentials
+     */
+    protected static String authorizationHeader(String user, String password, String oauthToken) {
+        if (Strings.isNotBlank(user) && Strings.isNotBlank(password)) {
+            return "Basic " + Base64.encodeBase64String((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+        } else if (Strings.notEmpty(oauthToken)) {
+            return "token " + oauthToken;
+        }
+        return null;
+    }
+
+    protected File getCacheDir() {
+        File rootDir;
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins != null) {
+            rootDir = jenkins.getRootDir();
+        } else {
+            rootDir = new File(System.getProperty("java.io.tmpdir"));
+        }
+        File dir = new File(rootDir, "fabric8/github-cache");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            LOG.warning("Could not create GitHub HTTP cache directory " + dir + " so not caching GitHub responses");
+            return null;
+        }
+        return dir;
+    }
+
+    protected static class TokenFile {
+        private final String token;
+        private final long lastModified;
+
+        public TokenFile(String token, long lastModified) {
+            this.token = token;
+            this.lastModified = lastModified;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the most recent <code>X-RateLimit-*</code> response headers from GitHub per credential so that
+ * callers can adapt how often they poll without spending a request on the rate limit API
+ */
+public class GitHubRateLimits implements Interceptor {
+    private static final GitHubRateLimits instance = new GitHubRateLimits();
+
+    private final ConcurrentMap<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+
+    public static GitHubRateLimits getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the key used to identify a credential from the value of its <code>Authorization</code> header
+     */
+    public static String credentialKey(String authorization) {
+        if (authorization == null || authorization.isEmpty()) {
+            return "anonymous";
+        }
+        return DigestUtils.sha256Hex(authorization);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        if (request.url().encodedPath().endsWith("/graphql")) {
+            // GraphQL requests have a separate points based rate limit
+            return response;
+        }
+        String limit = response.header("X-RateLimit-Limit");
+        String remaining = response.header("X-RateLimit-Remaining");
+        String reset = response.header("X-RateLimit-Reset");
+        if (limit != null && remaining != null && reset != null) {
+            try {
+                record(credentialKey(request.header("Authorization")),
+                        new RateLimit(Integer.parseInt(limit), Integer.parseInt(remaining), Long.parseLong(reset) * 1000L));
+            } catch (NumberFormatException e) {
+                // ignore invalid headers
+            }
+        }
+        return response;
+    }
+
+    public void record(String key, RateLimit rateLimit) {
+        rateLimits.put(key, rateLimit);
+    }
+
+    /**
+     * Returns the last known rate limit for the given credential key or null if none is known yet
+     */
+    public RateLimit getRateLimit(String key) {
+        RateLimit answer = rateLimits.get(key);
+        if (answer != null && answer.getResetTime() < System.currentTimeMillis()) {
+            // the window has reset so we no longer know the remaining count
+            rateLimits.remove(key, answer);
+            return null;
+        }
+        return answer;
+    }
+
+    public Map<String, RateLimit> getRateLimits() {
+        return rateLimits;
+    }
+
+    /**
+     * A snapshot of the rate limit of a credential
+     */
+    public static class RateLimit {
+        private final int limit;
+        private final int remaining;
+        private final long resetTime;
+
+        public RateLimit(int limit, int remaining, long resetTime) {
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetTime = resetTime;
+        }
+
+        @Override
+        public String toString() {
+            return "RateLimit{" +
+                    "limit=" + limit +
+                    ", remaining=" + remaining +
+                    ", resetTime=" + resetTime +
+                    '}';
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getRemaining() {
+            return remaining;
+        }
+
+        /**
+         * Returns the time in millis when the rate limit window resets
+         */
+        public long getResetTime() {
+            return resetTime;
+        }
+
+        /**
+         * Returns the delay in millis to wait between requests so that the remaining requests last until the reset
+         */
+        public long getEvenPacingMillis(long now) {
+            long window = Math.max(0L, resetTime - now);
+            return window / Math.max(1, remaining);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules all the GitHub API requests made by the controller against the rate limit budget of each credential.
+ * <p>
+ * Requests wait in a queue per credential ordered by the {@link Priority} of the calling thread. While plenty of
+ * quota remains requests are sent straight away; once less than half the quota remains requests are paced evenly
+ * until the rate limit window resets. Lower priorities are also held back from the last part of the quota so that
+ * CD merges can still proceed when CI comment scans have used up most of it.
+ */
+public class GitHubRequestScheduler implements Interceptor {
+    private static final GitHubRequestScheduler instance = new GitHubRequestScheduler();
+    private static final ThreadLocal<Priority> currentPriority = new ThreadLocal<>();
+
+    private final ConcurrentMap<String, CredentialQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong delayedCount = new AtomicLong();
+
+    /**
+     * The relative priority of GitHub requests
+     */
+    public enum Priority {
+        /**
+         * Background CI requests such as scanning comments on pull requests
+         */
+        CI(0.2),
+        DEFAULT(0.05),
+        /**
+         * Continuous delivery requests such as creating and merging pull requests during a release
+         */
+        CD(0.0);
+
+        private final double reservedFraction;
+
+        Priority(double reservedFraction) {
+            this.reservedFraction = reservedFraction;
+        }
+
+        /**
+         * Returns the fraction of the rate limit which requests of this priority may not use
+         */
+        public double getReservedFraction() {
+            return reservedFraction;
+        }
+    }
+
+    public static GitHubRequestScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the priority of the GitHub requests made by the current thread
+     */
+    public static Priority getPriority() {
+        Priority answer = currentPriority.get();
+        return answer != null ? answer : Priority.DEFAULT;
+    }
+
+    /**
+     * Sets the priority of the GitHub requests made by the current thread returning the previous priority
+     * which should be restored in a finally block
+     */
+    public static Priority setPriority(Priority priority) {
+        Priority answer = currentPriority.get();
+        if (priority != null) {
+            currentPriority.set(priority);
+        } else {
+            currentPriority.remove();
+        }
+        return answer;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String key = GitHubRateLimits.credentialKey(chain.request().header("Authorization"));
+        CredentialQueue queue = queues.computeIfAbsent(key, CredentialQueue::new);
+        try {
+            queue.acquire(getPriority());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to send GitHub request");
+        }
+        requestCount.incrementAndGet();
+        return chain.proceed(chain.request());
+    }
+
+    /**
+     * Returns the number of requests waiting to be sent for each credential
+     */
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> answer = new TreeMap<>();
+        for (CredentialQueue queue : queues.values()) {
+            answer.put(queue.getKey(), queue.getDepth());
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the total number of requests waiting to be sent
+     */
+    public int getQueueDepth() {
+        int answer = 0;
+        for (CredentialQueue queue : queues.values()) {
+            answer += queue.getDepth();
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the last known remaining rate limit for each credential
+     */
+    public Map<String, Integer> getRemainingQuotas() {
+        Map<String, Integer> answer = new TreeMap<>();
+        for (String key : queues.keySet()) {
+            GitHubRateLimits.RateLimit rateLimit = GitHubRateLimits.getInstance().getRateLimit(key);
+            if (rateLimit != null) {
+                answer.put(key, rateLimit.getRemaining());
+            }
+        }
+        return answer;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of requests which had to wait before they were sent
+     */
+    public long getDelayedCount() {
+        return delayedCount.get();
+    }
+
+    /**
+     * Returns the time at which a request of the given priority may be sent given the last send time
+     */
+    protected long earliestSendTime(String key, Priority priority, long lastSendTime, long now) {
+        GitHubRateLimits.RateLimit rateLimit = GitHubRateLimits.getInstance().getRateLimit(key);
+        if (rateLimit == null) {
+            return now;
+        }
+        int limit = rateLimit.getLimit();
+        int remaining = rateLimit.getRemaining();
+        if (remaining <= 0 || remaining <= limit * priority.getReservedFraction()) {
+            return rateLimit.getResetTime();
+        }
+        if (remaining < limit / 2) {
+            return Math.max(now, lastSendTime + rateLimit.getEvenPacingMillis(now));
+        }
+        return now;
+    }
+
+    protected class CredentialQueue {
+        private final String key;
+        private final PriorityQueue<Ticket> waiting = new PriorityQueue<>();
+        private long sequence;
+        private long lastSendTime;
+
+        public CredentialQueue(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public synchronized int getDepth() {
+            return waiting.size();
+        }
+
+        public synchronized void acquire(Priority priority) throws InterruptedException {
+            Ticket ticket = new Ticket(priority, sequence++);
+            waiting.add(ticket);
+            boolean delayed = false;
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    if (waiting.peek() == ticket) {
+                        long sendTime = earliestSendTime(key, priority, lastSendTime, now);
+                        if (sendTime <= now) {
+                            break;
+                        }
+                        delayed = true;
+                        // a higher priority request may arrive while we wait so lets not sleep too long
+                        wait(Math.min(sendTime - now, 1000L));
+                    } else {
+                        delayed = true;
+                        wait(1000L);
+                    }
+                }
+                lastSendTime = System.currentTimeMillis();
+            } finally {
+                waiting.remove(ticket);
+                notifyAll();
+            }
+            if (delayed) {
+                delayedCount.incrementAndGet();
+            }
+        }
+    }
+
+    protected static class Ticket implements Comparable<Ticket> {
+        private final Priority priority;
+        private final long sequence;
+
+        public Ticket(Priority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Ticket that) {
+            int answer = that.priority.compareTo(this.priority);
+            if (answer == 0) {
+                answer = Long.compare(this.sequence, that.sequence);
+            }
+            return answer;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.Extension;
+import hudson.model.UnprotectedRootAction;
+import hudson.security.csrf.CrumbExclusion;
+import io.fabric8.utils.Strings;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives GitHub <code>pull_request</code> webhook events at <code>$JENKINS_URL/fabric8-github-webhook/</code>
+ * and passes them to the {@link PullRequestWatcher} so that pipelines waiting on a pull request are woken
+ * up straight away rather than having to poll. The {@link OpenPullRequestIndex} of the project is forgotten
+ * whenever a pull request is opened, closed or edited.
+ * <p>
+ * The <code>X-Hub-Signature</code> of each event must match the <code>FABRIC8_GITHUB_WEBHOOK_SECRET</code>
+ * environment variable; events are rejected if it is not set as anyone can POST to this URL.
+ */
+@Extension
+public class GitHubWebhookAction implements UnprotectedRootAction {
+    private static final Logger LOG = Logger.getLogger(GitHubWebhookAction.class.getName());
+
+    public static final String URL_NAME = "fabric8-github-webhook";
+    public static final String SECRET_ENV_VAR = "FABRIC8_GITHUB_WEBHOOK_SECRET";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "fabric8 GitHub webhook";
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    @RequirePOST
+    public HttpResponse doIndex(StaplerRequest request) throws IOException {
+        String secret = System.getenv(SECRET_ENV_VAR);
+        if (Strings.isNullOrBlank(secret)) {
+            LOG.warning("Rejecting GitHub webhook event as $" + SECRET_ENV_VAR + " is not set");
+            return HttpResponses.error(HttpServletResponse.SC_FORBIDDEN, "No webhook secret configured");
+        }
+        byte[] body = IOUtils.toByteArray(request.getInputStream());
+        if (!isValidSignature(secret, request.getHeader("X-Hub-Signature"), body)) {
+            return HttpResponses.error(HttpServletResponse.SC_FORBIDDEN, "Invalid signature");
+        }
+        String event = request.getHeader("X-GitHub-Event");
+        if ("ping".equals(event)) {
+            return HttpResponses.plainText("pong");
+        }
+        if (!"pull_request".equals(event)) {
+            return HttpResponses.plainText("ignored event " + event);
+        }
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(body);
+        } catch (IOException e) {
+            return HttpResponses.error(HttpServletResponse.SC_BAD_REQUEST, "Invalid JSON payload");
+        }
+        String project = payload.path("repository").path("full_name").asText(null);
+        JsonNode pullRequest = payload.path("pull_request");
+        int number = pullRequest.path("number").asInt(0);
+        if (Strings.isNullOrBlank(project) || number <= 0) {
+            return HttpResponses.error(HttpServletResponse.SC_BAD_REQUEST, "Missing repository or pull request");
+        }
+        if (!"synchronize".equals(payload.path("action").asText())) {
+            // the pull request was opened, closed, merged or retitled
+            OpenPullRequestIndex.getInstance().invalidate(project);
+        }
+        boolean waiting = PullRequestWatcher.getInstance().onPullRequestEvent(project, number, PullRequestState.fromJson(pullRequest));
+        LOG.log(Level.FINE, "Received pull_request event for " + project + "#" + number + " waiting: " + waiting);
+        return HttpResponses.plainText(waiting ? "notified" : "no pipelines waiting");
+    }
+
+    protected boolean isValidSignature(String secret, String signature, byte[] body) {
+        if (signature == null || !signature.startsWith("sha1=")) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA1");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+            String expected = "sha1=" + Hex.encodeHexString(mac.doFinal(body));
+            return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), signature.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Failed to verify webhook signature due to " + e, e);
+            return false;
+        }
+    }
+
+    /**
+     * GitHub cannot send a CSRF crumb so lets exclude the webhook URL from crumb checks
+     */
+    @Extension
+    public static class GitHubWebhookCrumbExclusion extends CrumbExclusion {
+        @Override
+        public boolean process(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+            String pathInfo = request.getPathInfo();
+            if (pathInfo != null && (pathInfo.equals("/" + URL_NAME) || pathInfo.startsWith("/" + URL_NAME + "/"))) {
+                chain.doFilter(request, response);
+                return true;
+            }
+            return false;
+        }
+    }
+}
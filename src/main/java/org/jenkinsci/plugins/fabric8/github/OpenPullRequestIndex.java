@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An index of the open pull requests of each project by normalized title so that dependency update pipelines
+ * can find an existing pull request without fetching them all again.
+ * <p>
+ * Each page of open pull requests is fetched once and then revalidated with its <code>ETag</code>; unchanged pages
+ * return <code>304 Not Modified</code> which does not count against the rate limit.
+ */
+public class OpenPullRequestIndex {
+    public static final int PAGE_SIZE = 100;
+    public static final int MAX_CACHED_PROJECTS = 256;
+    public static final long DEFAULT_REVALIDATE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final OpenPullRequestIndex instance = new OpenPullRequestIndex();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Snapshot> snapshots = new LinkedHashMap<String, Snapshot>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+            return size() > MAX_CACHED_PROJECTS;
+        }
+    };
+    private final AtomicLong pagesFetched = new AtomicLong();
+    private final AtomicLong pagesNotModified = new AtomicLong();
+    private long revalidateMillis = DEFAULT_REVALIDATE_MILLIS;
+
+    public static OpenPullRequestIndex getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the normalized form of a pull request title used as the index key
+     */
+    public static String normalizeTitle(String title) {
+        if (title == null) {
+            return "";
+        }
+        return title.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    /**
+     * Returns an up to date index of the open pull requests of the given project
+     */
+    public Snapshot getOpenPullRequests(GitHub gitHub, String project) throws IOException {
+        String key = project.toLowerCase();
+        Snapshot current;
+        synchronized (snapshots) {
+            current = snapshots.get(key);
+        }
+        if (current != null && System.currentTimeMillis() - current.getLoadedTime() < revalidateMillis) {
+            return current;
+        }
+        Snapshot answer = load(gitHub, project, current);
+        synchronized (snapshots) {
+            snapshots.put(key, answer);
+        }
+        return answer;
+    }
+
+    /**
+     * Forgets the index of the given project; for example after creating, merging or closing a pull request
+     */
+    public void invalidate(String project) {
+        synchronized (snapshots) {
+            snapshots.remove(project.toLowerCase());
+        }
+    }
+
+    public long getPagesFetched() {
+        return pagesFetched.get();
+    }
+
+    public long getPagesNotModified() {
+        return pagesNotModified.get();
+    }
+
+    public long getRevalidateMillis() {
+        return revalidateMillis;
+    }
+
+    public void setRevalidateMillis(long revalidateMillis) {
+        this.revalidateMillis = revalidateMillis;
+    }
+
+    protected Snapshot load(GitHub gitHub, String project, Snapshot previous) throws IOException {
+        GitHubClients clients = GitHubClients.getInstance();
+        List<Page> pages = new ArrayList<>();
+        boolean changed = previous == null;
+        for (int number = 1; ; number++) {
+            Page previousPage = previous != null && number <= previous.pages.size() ? previous.pages.get(number - 1) : null;
+            Request.Builder builder = clients.newRequest(gitHub, "repos/" + project + "/pulls?state=open&per_page=" + PAGE_SIZE + "&page=" + number);
+            if (previousPage != null && previousPage.etag != null) {
+                builder.header("If-None-Match", previousPage.etag);
+            }
+            Request request = builder.build();
+            Page page;
+            try (Response response = clients.getHttpClient().newCall(request).execute()) {
+                if (response.code() == 304 && previousPage != null) {
+                    pagesNotModified.incrementAndGet();
+                    page = previousPage;
+                } else if (!response.isSuccessful()) {
+                    throw new IOException("Failed to GET " + request.url() + " status: " + response.code());
+                } else {
+                    pagesFetched.incrementAndGet();
+                    try (InputStream in = response.body().byteStream()) {
+                        page = new Page(response.header("ETag"), objectMapper.readTree(in));
+                    }
+                    changed = true;
+                }
+            }
+            pages.add(page);
+            if (page.pullRequests.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        if (!changed && pages.size() == previous.pages.size()) {
+            previous.loadedTime = System.currentTimeMillis();
+            return previous;
+        }
+        return new Snapshot(pages);
+    }
+
+    protected static class Page {
+        private final String etag;
+        private final JsonNode pullRequests;
+
+        public Page(String etag, JsonNode pullRequests) {
+            this.etag = etag;
+            this.pullRequests = pullRequests;
+        }
+    }
+
+    /**
+     * The open pull requests of a project at a point in time
+     */
+    public static class Snapshot {
+        private final List<Page> pages;
+        private final Map<String, Integer> byTitle = new LinkedHashMap<>();
+        private final List<Integer> numbers = new ArrayList<>();
+        private volatile long loadedTime = System.currentTimeMillis();
+
+        public Snapshot(List<Page> pages) {
+            this.pages = pages;
+            for (Page page : pages) {
+                for (JsonNode pullRequest : page.pullRequests) {
+                    int number = pullRequest.path("number").asInt();
+                    numbers.add(number);
+                    // pages are newest first so keep the first match
+                    byTitle.putIfAbsent(normalizeTitle(pullRequest.path("title").asText()), number);
+                }
+            }
+        }
+
+        /**
+         * Returns the number of the open pull request with the given title ignoring case and whitespace or null
+         */
+        public Integer findByTitle(String title) {
+            return byTitle.get(normalizeTitle(title));
+        }
+
+        /**
+         * Returns the number of the newest open pull request whose title contains the given text ignoring case
+         * and whitespace or null
+         */
+        public Integer findByTitleContaining(String text) {
+            String normalized = normalizeTitle(text);
+            for (Map.Entry<String, Integer> entry : byTitle.entrySet()) {
+                if (entry.getKey().contains(normalized)) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+
+        public List<Integer> getNumbers() {
+            return Collections.unmodifiableList(numbers);
+        }
+
+        public long getLoadedTime() {
+            return loadedTime;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.kohsuke.github.GHCommitPointer;
+import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHPullRequest;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * An immutable snapshot of the state of a pull request which is either polled from the GitHub API
+ * or received from a webhook event
+ */
+public class PullRequestState {
+    private final boolean merged;
+    private final boolean closed;
+    private final String mergeableState;
+    private final String headRef;
+    private final String htmlUrl;
+    private final String headSha;
+    private final String commitStatus;
+
+    public PullRequestState(boolean merged, boolean closed, String mergeableState, String headRef, String htmlUrl) {
+        this(merged, closed, mergeableState, headRef, htmlUrl, null, null);
+    }
+
+    public PullRequestState(boolean merged, boolean closed, String mergeableState, String headRef, String htmlUrl, String headSha, String commitStatus) {
+        this.merged = merged;
+        this.closed = closed;
+        this.mergeableState = mergeableState;
+        this.headRef = headRef;
+        this.htmlUrl = htmlUrl;
+        this.headSha = headSha;
+        this.commitStatus = commitStatus;
+    }
+
+    public static PullRequestState fromPullRequest(GHPullRequest pullRequest) throws IOException {
+        return fromPullRequest(pullRequest, null);
+    }
+
+    /**
+     * Creates the state from a pull request of the REST API and the combined status of its head commit
+     */
+    public static PullRequestState fromPullRequest(GHPullRequest pullRequest, String commitStatus) throws IOException {
+        GHCommitPointer head = pullRequest.getHead();
+        return new PullRequestState(pullRequest.isMerged(), GHIssueState.CLOSED.equals(pullRequest.getState()),
+                pullRequest.getMergeableState(), head != null ? head.getRef() : null,
+                pullRequest.getHtmlUrl() != null ? pullRequest.getHtmlUrl().toString() : null,
+                head != null ? head.getSha() : null, commitStatus);
+    }
+
+    /**
+     * Creates the state from the <code>pull_request</code> object of a webhook event payload
+     */
+    public static PullRequestState fromJson(JsonNode pullRequest) {
+        return new PullRequestState(pullRequest.path("merged").asBoolean(false),
+                "closed".equalsIgnoreCase(pullRequest.path("state").asText()),
+                textOrNull(pullRequest.path("mergeable_state")),
+                textOrNull(pullRequest.path("head").path("ref")),
+                textOrNull(pullRequest.path("html_url")),
+                textOrNull(pullRequest.path("head").path("sha")), null);
+    }
+
+    /**
+     * Returns a copy of this state with the given combined commit status
+     */
+    public PullRequestState withCommitStatus(String commitStatus) {
+        return new PullRequestState(merged, closed, mergeableState, headRef, htmlUrl, headSha, commitStatus);
+    }
+
+    /**
+     * Returns true if the combined commit status of the head commit is known and will not change without a new
+     * commit status being reported; i.e. it is neither unknown nor <code>pending</code>
+     */
+    public boolean isStatusFinal() {
+        return commitStatus != null && !"pending".equalsIgnoreCase(commitStatus);
+    }
+
+    /**
+     * Returns true if the pull request cannot be merged automatically
+     */
+    public boolean isConflicted() {
+        return "failure".equalsIgnoreCase(mergeableState) || "dirty".equalsIgnoreCase(mergeableState);
+    }
+
+    /**
+     * Returns true if the combined commit status of the head commit is known to be successful
+     */
+    public boolean isStatusSuccess() {
+        return "success".equalsIgnoreCase(commitStatus);
+    }
+
+    @Override
+    public String toString() {
+        return "PullRequestState{" +
+                "merged=" + merged +
+                ", closed=" + closed +
+                ", mergeableState='" + mergeableState + '\'' +
+                ", headRef='" + headRef + '\'' +
+                ", htmlUrl='" + htmlUrl + '\'' +
+                ", headSha='" + headSha + '\'' +
+                ", commitStatus='" + commitStatus + '\'' +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PullRequestState that = (PullRequestState) o;
+        return merged == that.merged &&
+                closed == that.closed &&
+                Objects.equals(mergeableState, that.mergeableState) &&
+                Objects.equals(headRef, that.headRef) &&
+                Objects.equals(htmlUrl, that.htmlUrl) &&
+                Objects.equals(headSha, that.headSha) &&
+                Objects.equals(commitStatus, that.commitStatus);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(merged, closed, mergeableState, headRef, htmlUrl, headSha, commitStatus);
+    }
+
+    public boolean isMerged() {
+        return merged;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getMergeableState() {
+        return mergeableState;
+    }
+
+    public String getHeadRef() {
+        return headRef;
+    }
+
+    public String getHtmlUrl() {
+        return htmlUrl;
+    }
+
+    public String getHeadSha() {
+        return headSha;
+    }
+
+    /**
+     * Returns the combined status of the head commit such as <code>success</code>, <code>pending</code>
+     * or <code>failure</code>; or null if it is not known
+     */
+    public String getCommitStatus() {
+        return commitStatus;
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : node.asText();
+    }
+}
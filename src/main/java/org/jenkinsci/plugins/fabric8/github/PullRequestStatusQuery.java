@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fetches everything needed to decide whether a pull request can be merged; its merged state, open state,
+ * mergeability, head ref and the combined status of its head commit, in a single GitHub GraphQL request
+ * rather than several REST requests.
+ */
+public class PullRequestStatusQuery {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String QUERY = "query($owner: String!, $name: String!, $number: Int!) {" +
+            " repository(owner: $owner, name: $name) {" +
+            "  pullRequest(number: $number) {" +
+            "   merged state mergeable headRefName url" +
+            "   commits(last: 1) { nodes { commit { oid status { state } } } }" +
+            "  }" +
+            " }" +
+            "}";
+
+    /**
+     * Returns the state of the given pull request
+     *
+     * @throws UnsupportedException if GraphQL cannot be used; for example on GitHub Enterprise versions without it
+     * @throws IOException if the query fails
+     */
+    public static PullRequestState query(GitHub gitHub, String project, int number) throws IOException {
+        if (gitHub.isAnonymous()) {
+            throw new UnsupportedException("The GitHub GraphQL API requires authentication");
+        }
+        int idx = project.indexOf('/');
+        if (idx <= 0) {
+            throw new IOException("Invalid GitHub project " + project + " expected owner/name");
+        }
+        ObjectNode variables = objectMapper.createObjectNode();
+        variables.put("owner", project.substring(0, idx));
+        variables.put("name", project.substring(idx + 1));
+        variables.put("number", number);
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("query", QUERY);
+        body.set("variables", variables);
+
+        GitHubClients clients = GitHubClients.getInstance();
+        Request request = clients.newRequest(gitHub, "graphql")
+                .url(graphqlUrl(gitHub.getApiUrl()))
+                .removeHeader("Cache-Control")
+                .post(RequestBody.create(JSON, objectMapper.writeValueAsBytes(body)))
+                .build();
+        JsonNode result;
+        try (Response response = clients.getHttpClient().newCall(request).execute()) {
+            if (response.code() == 404) {
+                throw new UnsupportedException("No GraphQL API at " + request.url());
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("GraphQL query for pull request " + number + " on " + project + " failed with status " + response.code());
+            }
+            try (InputStream in = response.body().byteStream()) {
+                result = objectMapper.readTree(in);
+            }
+        }
+        JsonNode errors = result.path("errors");
+        if (isSchemaError(errors)) {
+            throw new UnsupportedException("GraphQL schema does not support the pull request query: " + errors);
+        }
+        if (errors.size() > 0) {
+            throw new IOException("GraphQL query for pull request " + number + " on " + project + " failed: " + errors);
+        }
+        JsonNode pullRequest = result.path("data").path("repository").path("pullRequest");
+        if (pullRequest.isMissingNode() || pullRequest.isNull()) {
+            throw new IOException("Could not find pull request " + number + " on " + project);
+        }
+        return fromGraphQL(pullRequest);
+    }
+
+    /**
+     * Returns the combined status of the given commit using the REST API or null if the commit has no statuses;
+     * matching the <code>status</code> of the GraphQL query
+     */
+    public static String queryCombinedStatus(GitHub gitHub, String project, String sha) throws IOException {
+        GitHubClients clients = GitHubClients.getInstance();
+        Request request = clients.newRequest(gitHub, "repos/" + project + "/commits/" + sha + "/status").get().build();
+        try (Response response = clients.getHttpClient().newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to get the status of commit " + sha + " on " + project + " status: " + response.code());
+            }
+            JsonNode result;
+            try (InputStream in = response.body().byteStream()) {
+                result = objectMapper.readTree(in);
+            }
+            if (result.path("total_count").asInt(0) == 0) {
+                return null;
+            }
+            return result.path("state").asText(null);
+        }
+    }
+
+    /**
+     * Returns true if the errors show that the GraphQL schema does not have the fields we query
+     * rather than a problem with this particular request
+     */
+    protected static boolean isSchemaError(JsonNode errors) {
+        for (JsonNode error : errors) {
+            String code = error.path("extensions").path("code").asText(error.path("type").asText(""));
+            if (code.startsWith("undefined") || code.equals("argumentLiteralsIncompatible")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts the <code>pullRequest</code> object of the query result using the same values as the REST API
+     */
+    public static PullRequestState fromGraphQL(JsonNode pullRequest) {
+        String mergeable = pullRequest.path("mergeable").asText("");
+        String mergeableState = null;
+        if ("CONFLICTING".equals(mergeable)) {
+            mergeableState = "dirty";
+        } else if ("MERGEABLE".equals(mergeable)) {
+            mergeableState = "clean";
+        }
+        JsonNode commit = pullRequest.path("commits").path("nodes").path(0).path("commit");
+        JsonNode status = commit.path("status").path("state");
+        return new PullRequestState(pullRequest.path("merged").asBoolean(false),
+                !"OPEN".equals(pullRequest.path("state").asText()),
+                mergeableState,
+                pullRequest.path("headRefName").asText(null),
+                pullRequest.path("url").asText(null),
+                commit.path("oid").asText(null),
+                status.isMissingNode() || status.isNull() ? null : status.asText().toLowerCase());
+    }
+
+    /**
+     * Returns the GraphQL endpoint for the given REST API URL; which differs on GitHub Enterprise
+     */
+    protected static String graphqlUrl(String apiUrl) {
+        String url = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        if (url.endsWith("/api/v3")) {
+            return url.substring(0, url.length() - "/v3".length()) + "/graphql";
+        }
+        return url + "/graphql";
+    }
+
+    /**
+     * Thrown when the GraphQL API cannot be used at all so that callers stop trying it
+     */
+    public static class UnsupportedException extends IOException {
+        public UnsupportedException(String message) {
+            super(message);
+        }
+    }
+}
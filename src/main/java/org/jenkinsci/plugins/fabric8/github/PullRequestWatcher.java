@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import org.kohsuke.github.GHCommitPointer;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GitHub;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tracks the state of the pull requests that pipelines are waiting on.
+ * <p>
+ * State changes are pushed from GitHub webhook events via {@link GitHubWebhookAction}. If no event arrives
+ * the pull request is polled with an exponential backoff which is stretched further when the last known
+ * <code>X-RateLimit-Remaining</code> of the credential is low.
+ * <p>
+ * All the waiters on the same repository share one subscription and at most one of them polls a given
+ * pull request at a time; the others reuse its result.
+ */
+public class PullRequestWatcher {
+    private static final Logger LOG = Logger.getLogger(PullRequestWatcher.class.getName());
+
+    public static final long DEFAULT_INITIAL_POLL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    public static final long DEFAULT_MAX_POLL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    public static final double DEFAULT_LOW_RATE_LIMIT_FRACTION = 0.2;
+
+    private static final PullRequestWatcher instance = new PullRequestWatcher();
+
+    private final Map<String, RepositorySubscription> subscriptions = new HashMap<>();
+    private long initialPollMillis = DEFAULT_INITIAL_POLL_MILLIS;
+    private long maxPollMillis = DEFAULT_MAX_POLL_MILLIS;
+    private double lowRateLimitFraction = DEFAULT_LOW_RATE_LIMIT_FRACTION;
+
+    public static PullRequestWatcher getInstance() {
+        return instance;
+    }
+
+    /**
+     * Subscribes to the pull requests of the given repository; the subscription must be closed when the caller
+     * has finished waiting
+     */
+    public synchronized Subscription subscribe(String project) {
+        String key = repositoryKey(project);
+        RepositorySubscription repository = subscriptions.get(key);
+        if (repository == null) {
+            repository = new RepositorySubscription(project);
+            subscriptions.put(key, repository);
+        }
+        repository.refCount++;
+        return new Subscription(repository);
+    }
+
+    /**
+     * Invoked when a webhook event for a pull request is received
+     *
+     * @return true if any pipeline is waiting on the repository
+     */
+    public boolean onPullRequestEvent(String project, int number, PullRequestState state) {
+        RepositorySubscription repository;
+        synchronized (this) {
+            repository = subscriptions.get(repositoryKey(project));
+        }
+        if (repository == null) {
+            return false;
+        }
+        repository.onEvent(number, state);
+        return true;
+    }
+
+    public synchronized int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    public long getInitialPollMillis() {
+        return initialPollMillis;
+    }
+
+    public void setInitialPollMillis(long initialPollMillis) {
+        this.initialPollMillis = initialPollMillis;
+    }
+
+    public long getMaxPollMillis() {
+        return maxPollMillis;
+    }
+
+    public void setMaxPollMillis(long maxPollMillis) {
+        this.maxPollMillis = maxPollMillis;
+    }
+
+    public double getLowRateLimitFraction() {
+        return lowRateLimitFraction;
+    }
+
+    public void setLowRateLimitFraction(double lowRateLimitFraction) {
+        this.lowRateLimitFraction = lowRateLimitFraction;
+    }
+
+    protected synchronized void unsubscribe(RepositorySubscription repository) {
+        if (--repository.refCount <= 0) {
+            subscriptions.remove(repositoryKey(repository.project), repository);
+        }
+    }
+
+    /**
+     * Returns the delay before polling again given the last delay and the rate limit of the credential
+     */
+    protected long nextPollDelay(long lastDelay, boolean changed, GitHub gitHub, long now) {
+        long delay = changed ? initialPollMillis : Math.min(maxPollMillis, Math.max(initialPollMillis, lastDelay * 2));
+        GitHubRateLimits.RateLimit rateLimit = GitHubClients.getInstance().getRateLimit(gitHub);
+        if (rateLimit != null) {
+            if (rateLimit.getRemaining() <= 0) {
+                delay = Math.max(delay, rateLimit.getResetTime() - now);
+            } else if (rateLimit.getRemaining() < rateLimit.getLimit() * lowRateLimitFraction) {
+                delay = Math.max(delay, rateLimit.getEvenPacingMillis(now));
+            }
+        }
+        return delay;
+    }
+
+    protected static String repositoryKey(String project) {
+        return project.toLowerCase();
+    }
+
+    /**
+     * A handle on the shared subscription of a repository
+     */
+    public class Subscription implements AutoCloseable {
+        private final RepositorySubscription repository;
+        private boolean closed;
+
+        public Subscription(RepositorySubscription repository) {
+            this.repository = repository;
+        }
+
+        /**
+         * Blocks until the state of the given pull request differs from the last seen state, returning the new state.
+         * Passing null returns the current state as soon as it is known.
+         */
+        public PullRequestState await(GitHub gitHub, int number, PullRequestState lastSeen) throws InterruptedException {
+            return repository.await(gitHub, number, lastSeen, -1);
+        }
+
+        /**
+         * Blocks like {@link #await(GitHub, int, PullRequestState)} for at most the given time
+         *
+         * @return the new state or null if it did not change in time
+         */
+        public PullRequestState await(GitHub gitHub, int number, PullRequestState lastSeen, long timeoutMillis) throws InterruptedException {
+            return repository.await(gitHub, number, lastSeen, timeoutMillis);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                unsubscribe(repository);
+            }
+        }
+    }
+
+    protected class RepositorySubscription {
+        private final String project;
+        private final Map<Integer, PullRequestEntry> pullRequests = new HashMap<>();
+        private int refCount;
+        private volatile boolean graphQLSupported = true;
+
+        public RepositorySubscription(String project) {
+            this.project = project;
+        }
+
+        public PullRequestState await(GitHub gitHub, int number, PullRequestState lastSeen, long timeoutMillis) throws InterruptedException {
+            long deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+            while (true) {
+                PullRequestEntry entry;
+                synchronized (this) {
+                    entry = getEntry(number);
+                    while (true) {
+                        if (entry.state != null && !entry.state.equals(lastSeen)) {
+                            return entry.state;
+                        }
+                        long now = System.currentTimeMillis();
+                        if (now >= deadline) {
+                            return null;
+                        }
+                        if (!entry.polling && now >= entry.nextPollTime) {
+                            entry.polling = true;
+                            break;
+                        }
+                        long wait = entry.polling ? initialPollMillis : entry.nextPollTime - now;
+                        wait(Math.max(1L, Math.min(wait, deadline - now)));
+                    }
+                }
+                PullRequestState polled = poll(gitHub, number);
+                synchronized (this) {
+                    boolean changed = polled != null && !polled.equals(entry.state);
+                    if (polled != null) {
+                        entry.state = polled;
+                    }
+                    long now = System.currentTimeMillis();
+                    entry.pollDelay = nextPollDelay(entry.pollDelay, changed, gitHub, now);
+                    entry.nextPollTime = now + entry.pollDelay;
+                    entry.polling = false;
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Fetches the state with a single GraphQL request if possible falling back to the REST API.
+         * GraphQL is only abandoned for the repository if the API does not support it; other failures such as
+         * timeouts or rate limiting just use the REST API for this poll.
+         */
+        protected PullRequestState poll(GitHub gitHub, int number) {
+            if (graphQLSupported) {
+                try {
+                    return PullRequestStatusQuery.query(gitHub, project, number);
+                } catch (PullRequestStatusQuery.UnsupportedException e) {
+                    LOG.log(Level.FINE, "GraphQL is not supported for " + project + " due to " + e, e);
+                    graphQLSupported = false;
+                } catch (Exception e) {
+                    LOG.log(Level.FINE, "Failed to query pull request " + number + " on " + project + " via GraphQL due to " + e, e);
+                }
+            }
+            try {
+                GHPullRequest pullRequest = gitHub.getRepository(project).getPullRequest(number);
+                GHCommitPointer head = pullRequest.getHead();
+                String commitStatus = null;
+                if (head != null && head.getSha() != null) {
+                    commitStatus = PullRequestStatusQuery.queryCombinedStatus(gitHub, project, head.getSha());
+                }
+                return PullRequestState.fromPullRequest(pullRequest, commitStatus);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Failed to poll pull request " + number + " on " + project + " due to " + e, e);
+                return null;
+            }
+        }
+
+        public synchronized void onEvent(int number, PullRequestState state) {
+            PullRequestEntry entry = getEntry(number);
+            // webhook events never carry the commit status so keep the polled one while the head commit is the same
+            PullRequestState previous = entry.state;
+            if (state.getCommitStatus() == null && previous != null && previous.getHeadSha() != null &&
+                    previous.getHeadSha().equals(state.getHeadSha())) {
+                state = state.withCommitStatus(previous.getCommitStatus());
+            }
+            entry.state = state;
+            entry.pollDelay = initialPollMillis;
+            long now = System.currentTimeMillis();
+            if (state.isClosed() || state.isStatusFinal()) {
+                // we just received the latest state so lets not poll for a while
+                entry.nextPollTime = now + maxPollMillis;
+            } else {
+                // the status is unknown or pending and only polling will tell us when it changes
+                entry.nextPollTime = Math.min(entry.nextPollTime, now + initialPollMillis);
+            }
+            notifyAll();
+        }
+
+        protected PullRequestEntry getEntry(int number) {
+            PullRequestEntry entry = pullRequests.get(number);
+            if (entry == null) {
+                entry = new PullRequestEntry();
+                pullRequests.put(number, entry);
+            }
+            return entry;
+        }
+    }
+
+    protected static class PullRequestEntry {
+        private PullRequestState state;
+        private long pollDelay;
+        private long nextPollTime;
+        private boolean polling;
+    }
+}
@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  */
@@ -50,4 +52,19 @@ public class MavenHelpers {
         }
         return " -P " + String.join(",", configuredProfiles);
     }
+
+    /**
+     * Replaces the text of the first element with the given name in the pom leaving the rest of the
+     * file untouched so that the formatting and comments are preserved
+     *
+     * @return the new pom or null if there is no such element or it already has the given value
+     */
+    public static String updatePomProperty(String pomFileContent, String elementName, String newValue) {
+        Pattern pattern = Pattern.compile("(<" + Pattern.quote(elementName) + "\\s*>)([^<]*)(</" + Pattern.quote(elementName) + "\\s*>)");
+        Matcher matcher = pattern.matcher(pomFileContent);
+        if (!matcher.find() || matcher.group(2).trim().equals(newValue)) {
+            return null;
+        }
+        return pomFileContent.substring(0, matcher.start(2)) + newValue + pomFileContent.substring(matcher.end(2));
+    }
 }
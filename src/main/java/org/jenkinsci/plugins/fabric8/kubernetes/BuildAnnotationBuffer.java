@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.kubernetes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.utils.URLUtils;
+import io.fabric8.openshift.client.OpenShiftClient;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the annotations to be added to the OpenShift Build of a pipeline run so that they can be
+ * written in a single JSON merge patch rather than updating the Build once per annotation.
+ * <p>
+ * Annotations are only held back while a step has started a batch with {@link #beginBatch()}; otherwise they
+ * should be flushed as soon as they are added.
+ */
+public class BuildAnnotationBuffer {
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_RETRY_DELAY_MILLIS = 200L;
+
+    private static final MediaType MERGE_PATCH = MediaType.parse("application/merge-patch+json");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, String> annotations = new LinkedHashMap<>();
+    private int batches;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+
+    /**
+     * Adds an annotation to be written on the next flush; replacing any pending value of the same key
+     */
+    public synchronized void add(String key, String value) {
+        annotations.put(key, value);
+    }
+
+    /**
+     * Starts holding back annotations until the matching {@link #endBatch()}; batches may be nested
+     */
+    public synchronized void beginBatch() {
+        batches++;
+    }
+
+    /**
+     * Ends a batch started by {@link #beginBatch()}
+     *
+     * @return true if this was the outermost batch so the annotations should now be flushed
+     */
+    public synchronized boolean endBatch() {
+        if (batches > 0) {
+            batches--;
+        }
+        return batches == 0;
+    }
+
+    /**
+     * Returns true if a step is collecting annotations to flush them together later
+     */
+    public synchronized boolean isBatching() {
+        return batches > 0;
+    }
+
+    public synchronized boolean isEmpty() {
+        return annotations.isEmpty();
+    }
+
+    public synchronized Map<String, String> getAnnotations() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(annotations));
+    }
+
+    /**
+     * Writes all the pending annotations to the given Build with one merge patch, retrying on conflicts
+     * and server errors. The pending annotations are only cleared if the patch succeeds.
+     *
+     * @return the annotations which were written
+     */
+    public Map<String, String> flush(OpenShiftClient client, String namespace, String buildName) throws IOException, InterruptedException {
+        Map<String, String> pending = getAnnotations();
+        if (pending.isEmpty()) {
+            return pending;
+        }
+        patchBuild(client, namespace, buildName, pending);
+        synchronized (this) {
+            for (Map.Entry<String, String> entry : pending.entrySet()) {
+                annotations.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return pending;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+
+    public void setRetryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    protected void patchBuild(OpenShiftClient client, String namespace, String buildName, Map<String, String> pending) throws IOException, InterruptedException {
+        if (!(client instanceof HttpClientAware)) {
+            throw new KubernetesClientException("Cannot patch Build " + buildName + " as the client does not expose its HTTP client");
+        }
+        OkHttpClient httpClient = ((HttpClientAware) client).getHttpClient();
+        String url = URLUtils.join(client.getOpenshiftUrl().toString(), "namespaces", namespace, "builds", buildName);
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("annotations", pending);
+        byte[] body = objectMapper.writeValueAsBytes(Collections.singletonMap("metadata", metadata));
+
+        for (int attempt = 1; ; attempt++) {
+            Request request = new Request.Builder().url(url).patch(RequestBody.create(MERGE_PATCH, body)).build();
+            int code;
+            String message;
+            try (Response response = httpClient.newCall(request).execute()) {
+                if (response.isSuccessful()) {
+                    return;
+                }
+                code = response.code();
+                message = response.body() != null ? response.body().string() : "";
+            }
+            boolean retryable = code == 409 || code == 429 || code >= 500;
+            if (!retryable || attempt >= maxAttempts) {
+                throw new KubernetesClientException("Failed to annotate Build " + buildName + " in namespace " + namespace +
+                        " status: " + code + " " + message, code, null);
+            }
+            Thread.sleep(retryDelayMillis * attempt);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.kubernetes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.init.Terminator;
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.utils.URLUtils;
+import io.fabric8.openshift.client.OpenShiftAPIGroups;
+import io.fabric8.openshift.client.OpenShiftClient;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Probes the capabilities of the current cluster once and caches the answers for a time to live
+ * so that steps don't need to query the API server each time they check if the cluster is OpenShift,
+ * supports S2I or is a single node cluster.
+ * <p>
+ * The single node answer is also invalidated whenever a node is added or removed.
+ */
+public class ClusterCapabilities {
+    private static final Logger LOG = Logger.getLogger(ClusterCapabilities.class.getName());
+
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final long DEFAULT_FAILURE_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final String OPENSHIFT = "openshift";
+    private static final String S2I = "s2i";
+    private static final String SINGLE_NODE = "singleNode";
+
+    /**
+     * Lets only ask for node metadata if the server supports it
+     */
+    private static final String PARTIAL_METADATA_ACCEPT = "application/json;as=PartialObjectMetadataList;g=meta.k8s.io;v=v1beta1, application/json";
+
+    private static final ClusterCapabilities instance = new ClusterCapabilities();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentMap<String, CachedValue> values = new ConcurrentHashMap<>();
+    private long ttlMillis = DEFAULT_TTL_MILLIS;
+    private long failureTtlMillis = DEFAULT_FAILURE_TTL_MILLIS;
+    private volatile Watch nodeWatch;
+    private volatile long nodeWatchFailedTime;
+
+    public static ClusterCapabilities getInstance() {
+        return instance;
+    }
+
+    @Terminator
+    public static void shutdown() {
+        getInstance().close();
+    }
+
+    /**
+     * Returns true if the cluster is OpenShift
+     */
+    public boolean isOpenShift() {
+        return getValue(OPENSHIFT, () -> getOpenShiftClient().isAdaptable(OpenShiftClient.class));
+    }
+
+    /**
+     * Returns true if the cluster supports OpenShift S2I builds
+     */
+    public boolean supportsOpenShiftS2I() {
+        return getValue(S2I, () -> getOpenShiftClient().supportsOpenShiftAPIGroup(OpenShiftAPIGroups.IMAGE));
+    }
+
+    /**
+     * Returns true if the cluster has a single node
+     *
+     * @throws KubernetesClientException if the nodes could not be queried; for example due to security restrictions
+     */
+    public boolean isSingleNode() {
+        watchNodes();
+        CachedValue value = getCachedValue(SINGLE_NODE, this::querySingleNode);
+        if (value.getError() != null) {
+            throw new KubernetesClientException("Failed to query nodes - probably due to security restrictions", value.getError());
+        }
+        return value.getValue();
+    }
+
+    /**
+     * Clears all the cached answers so that they are probed again on next use
+     */
+    public void invalidate() {
+        values.clear();
+    }
+
+    public synchronized void close() {
+        if (nodeWatch != null) {
+            Watch watch = nodeWatch;
+            nodeWatch = null;
+            watch.close();
+        }
+        invalidate();
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public long getFailureTtlMillis() {
+        return failureTtlMillis;
+    }
+
+    public void setFailureTtlMillis(long failureTtlMillis) {
+        this.failureTtlMillis = failureTtlMillis;
+    }
+
+    protected KubernetesClient getKubernetesClient() {
+        return KubernetesClients.getInstance().kubernetesClient();
+    }
+
+    protected OpenShiftClient getOpenShiftClient() {
+        return KubernetesClients.getInstance().openShiftClient();
+    }
+
+    protected boolean getValue(String key, Callable<Boolean> probe) {
+        return getCachedValue(key, probe).getValue();
+    }
+
+    /**
+     * Returns the cached answer of the probe; failed probes are answered with false but only remembered for
+     * a short time so that one API server hiccup does not affect every build for the whole time to live
+     */
+    protected CachedValue getCachedValue(String key, Callable<Boolean> probe) {
+        long now = System.currentTimeMillis();
+        CachedValue value = values.get(key);
+        if (value == null || value.isExpired(now, value.getError() != null ? failureTtlMillis : ttlMillis)) {
+            try {
+                value = new CachedValue(probe.call(), null, now);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Failed to probe cluster capability " + key + " due to " + e, e);
+                value = new CachedValue(false, e, now);
+            }
+            values.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Only fetches the metadata of at most 2 nodes rather than every full Node object in the cluster
+     */
+    protected boolean querySingleNode() throws Exception {
+        KubernetesClient client = getKubernetesClient();
+        if (client instanceof HttpClientAware) {
+            OkHttpClient httpClient = ((HttpClientAware) client).getHttpClient();
+            String url = URLUtils.join(client.getMasterUrl().toString(), "api/v1/nodes") + "?limit=2";
+            Request request = new Request.Builder().url(url).header("Accept", PARTIAL_METADATA_ACCEPT).build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new KubernetesClientException("Failed to query nodes - probably due to security restrictions. Status: " + response.code());
+                }
+                try (InputStream in = response.body().byteStream()) {
+                    JsonNode items = objectMapper.readTree(in).get("items");
+                    return items != null && items.size() == 1;
+                }
+            }
+        }
+        return client.nodes().list().getItems().size() == 1;
+    }
+
+    protected synchronized void watchNodes() {
+        if (nodeWatch == null && System.currentTimeMillis() - nodeWatchFailedTime > ttlMillis) {
+            try {
+                nodeWatch = getKubernetesClient().nodes().watch(new Watcher<Node>() {
+                    @Override
+                    public void eventReceived(Action action, Node resource) {
+                        if (action == Action.ADDED || action == Action.DELETED) {
+                            values.remove(SINGLE_NODE);
+                        }
+                    }
+
+                    @Override
+                    public void onClose(KubernetesClientException cause) {
+                        synchronized (ClusterCapabilities.this) {
+                            nodeWatch = null;
+                        }
+                        values.remove(SINGLE_NODE);
+                    }
+                });
+            } catch (Exception e) {
+                // we may not be allowed to watch nodes so lets just rely on the time to live
+                nodeWatchFailedTime = System.currentTimeMillis();
+                LOG.log(Level.FINE, "Could not watch nodes due to " + e, e);
+            }
+        }
+    }
+
+    protected static class CachedValue {
+        private final boolean value;
+        private final Exception error;
+        private final long timestamp;
+
+        public CachedValue(boolean value, Exception error, long timestamp) {
+            this.value = value;
+            this.error = error;
+            this.timestamp = timestamp;
+        }
+
+        public boolean getValue() {
+            return value;
+        }
+
+        /**
+         * Returns the failure of the probe or null if it succeeded
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        public boolean isExpired(long now, long ttlMillis) {
+            return now - timestamp > ttlMillis;
+        }
+    }
+}
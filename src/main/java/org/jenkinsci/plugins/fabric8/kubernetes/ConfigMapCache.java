@@ -0,0 +1,296 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.kubernetes;
+
+import hudson.init.Terminator;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An in memory cache of the ConfigMaps in a namespace such as <code>fabric8-pipelines</code> and
+ * <code>fabric8-environments</code> which is kept up to date by a single watch per namespace and
+ * periodically resynchronised with a list call.
+ * <p>
+ * If the watch cannot be created (e.g. due to RBAC restrictions) we fall back to caching
+ * individual lookups for a short time.
+ */
+public class ConfigMapCache {
+    private static final Logger LOG = Logger.getLogger(ConfigMapCache.class.getName());
+
+    public static final long DEFAULT_RESYNC_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    public static final long DEFAULT_UNWATCHED_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final ConfigMapCache instance = new ConfigMapCache();
+
+    private final ConcurrentMap<String, NamespaceCache> namespaces = new ConcurrentHashMap<>();
+    private long resyncMillis = DEFAULT_RESYNC_MILLIS;
+    private long unwatchedTtlMillis = DEFAULT_UNWATCHED_TTL_MILLIS;
+
+    public static ConfigMapCache getInstance() {
+        return instance;
+    }
+
+    @Terminator
+    public static void shutdown() {
+        getInstance().close();
+    }
+
+    /**
+     * Returns the ConfigMap of the given name in the given namespace or null if it does not exist
+     */
+    public ConfigMap getConfigMap(String namespace, String name) {
+        return getNamespaceCache(namespace).getConfigMap(name);
+    }
+
+    /**
+     * Returns the data of the given ConfigMap or null if it does not exist
+     */
+    public Map<String, String> getConfigMapData(String namespace, String name) {
+        ConfigMap configMap = getConfigMap(namespace, name);
+        if (configMap != null) {
+            return configMap.getData();
+        }
+        return null;
+    }
+
+    /**
+     * Returns a value derived from the ConfigMaps in the given namespace such as the
+     * <code>Environments</code> or <code>PipelineConfiguration</code> which is reused
+     * until any ConfigMap in the namespace changes
+     */
+    public <T> T getDerivedValue(String namespace, String key, Callable<T> loader) throws Exception {
+        return getNamespaceCache(namespace).getDerivedValue(key, loader);
+    }
+
+    /**
+     * Removes all cached data and closes all the watches
+     */
+    public void close() {
+        List<NamespaceCache> list = new ArrayList<>(namespaces.values());
+        namespaces.clear();
+        for (NamespaceCache cache : list) {
+            cache.close();
+        }
+    }
+
+    public long getResyncMillis() {
+        return resyncMillis;
+    }
+
+    public void setResyncMillis(long resyncMillis) {
+        this.resyncMillis = resyncMillis;
+    }
+
+    public long getUnwatchedTtlMillis() {
+        return unwatchedTtlMillis;
+    }
+
+    public void setUnwatchedTtlMillis(long unwatchedTtlMillis) {
+        this.unwatchedTtlMillis = unwatchedTtlMillis;
+    }
+
+    protected KubernetesClient getKubernetesClient() {
+        return KubernetesClients.getInstance().kubernetesClient();
+    }
+
+    protected NamespaceCache getNamespaceCache(String namespace) {
+        return namespaces.computeIfAbsent(namespace, NamespaceCache::new);
+    }
+
+    protected class NamespaceCache implements Watcher<ConfigMap> {
+        private final String namespace;
+        // replaced as a whole on each resync so readers never see a partially filled map
+        private volatile ConcurrentMap<String, ConfigMap> configMaps = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Long> fetchTimes = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, DerivedValue> derivedValues = new ConcurrentHashMap<>();
+        private final AtomicLong version = new AtomicLong();
+        private volatile Watch watch;
+        private volatile boolean listFailed;
+        private volatile long lastSync;
+
+        public NamespaceCache(String namespace) {
+            this.namespace = namespace;
+        }
+
+        public ConfigMap getConfigMap(String name) {
+            if (!ensureSynced()) {
+                return getUnwatchedConfigMap(name);
+            }
+            return configMaps.get(name);
+        }
+
+        public <T> T getDerivedValue(String key, Callable<T> loader) throws Exception {
+            ensureSynced();
+            long currentVersion = version.get();
+            DerivedValue derived = derivedValues.get(key);
+            if (derived != null && derived.version == currentVersion) {
+                return (T) derived.value;
+            }
+            T value = loader.call();
+            // only keep the value if no ConfigMap changed while it was being computed
+            if (value != null && watch != null && version.get() == currentVersion) {
+                derivedValues.put(key, new DerivedValue(value, currentVersion));
+            }
+            return value;
+        }
+
+        @Override
+        public void eventReceived(Action action, ConfigMap configMap) {
+            String name = getName(configMap);
+            if (name == null) {
+                return;
+            }
+            if (action == Action.DELETED) {
+                configMaps.remove(name);
+            } else {
+                configMaps.put(name, configMap);
+            }
+            changed();
+        }
+
+        @Override
+        public void onClose(KubernetesClientException cause) {
+            if (cause != null) {
+                LOG.log(Level.FINE, "Watch on ConfigMaps in namespace " + namespace + " closed due to " + cause, cause);
+            }
+            synchronized (this) {
+                watch = null;
+                lastSync = 0L;
+            }
+        }
+
+        public synchronized void close() {
+            if (watch != null) {
+                Watch w = watch;
+                watch = null;
+                w.close();
+            }
+            configMaps = new ConcurrentHashMap<>();
+            changed();
+        }
+
+        /**
+         * Ensures the cache is watching and recently resynchronised, returning false if we could not
+         * list or watch the ConfigMaps in the namespace
+         */
+        protected synchronized boolean ensureSynced() {
+            long now = System.currentTimeMillis();
+            if (listFailed) {
+                if (now - lastSync < unwatchedTtlMillis) {
+                    return false;
+                }
+                listFailed = false;
+            }
+            if (watch != null && now - lastSync < resyncMillis) {
+                return true;
+            }
+            KubernetesClient client = getKubernetesClient();
+            try {
+                if (watch == null) {
+                    watch = client.configMaps().inNamespace(namespace).watch(this);
+                }
+                ConfigMapList list = client.configMaps().inNamespace(namespace).list();
+                ConcurrentMap<String, ConfigMap> newConfigMaps = new ConcurrentHashMap<>();
+                if (list != null && list.getItems() != null) {
+                    for (ConfigMap configMap : list.getItems()) {
+                        String name = getName(configMap);
+                        if (name != null) {
+                            newConfigMaps.put(name, configMap);
+                        }
+                    }
+                }
+                configMaps = newConfigMaps;
+                changed();
+                lastSync = now;
+                return true;
+            } catch (Exception e) {
+                LOG.log(Level.FINE, "Could not list and watch ConfigMaps in namespace " + namespace + " due to " + e, e);
+                if (watch != null) {
+                    watch.close();
+                    watch = null;
+                }
+                listFailed = true;
+                lastSync = now;
+                return false;
+            }
+        }
+
+        protected ConfigMap getUnwatchedConfigMap(String name) {
+            long now = System.currentTimeMillis();
+            Long fetchTime = fetchTimes.get(name);
+            if (fetchTime != null && now - fetchTime < unwatchedTtlMillis) {
+                return configMaps.get(name);
+            }
+            ConfigMap configMap;
+            try {
+                configMap = KubernetesClients.getInstance().coalesce("configMap/" + namespace + "/" + name,
+                        () -> getKubernetesClient().configMaps().inNamespace(namespace).withName(name).get());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new KubernetesClientException("Failed to get ConfigMap " + name + " in namespace " + namespace + " due to " + e, e);
+            }
+            if (configMap != null) {
+                configMaps.put(name, configMap);
+            } else {
+                configMaps.remove(name);
+            }
+            fetchTimes.put(name, now);
+            return configMap;
+        }
+
+        protected void changed() {
+            version.incrementAndGet();
+            derivedValues.clear();
+        }
+
+        protected String getName(ConfigMap configMap) {
+            if (configMap != null) {
+                ObjectMeta metadata = configMap.getMetadata();
+                if (metadata != null) {
+                    return metadata.getName();
+                }
+            }
+            return null;
+        }
+    }
+
+    protected static class DerivedValue {
+        private final Object value;
+        private final long version;
+
+        public DerivedValue(Object value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.kubernetes;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.openshift.api.model.ImageStream;
+import io.fabric8.openshift.api.model.ImageStreamStatus;
+import io.fabric8.openshift.api.model.NamedTagEventList;
+import io.fabric8.openshift.api.model.TagEvent;
+import io.fabric8.openshift.client.OpenShiftClient;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Helper methods for resolving the image of the latest tag on an {@link ImageStream}
+ */
+public class ImageStreamTags {
+
+    /**
+     * Returns the image of the latest tag event on the given ImageStream or null if there is none yet
+     */
+    public static String latestImage(ImageStream imageStream) {
+        if (imageStream == null) {
+            return null;
+        }
+        ImageStreamStatus status = imageStream.getStatus();
+        if (status == null) {
+            return null;
+        }
+        List<NamedTagEventList> tags = status.getTags();
+        if (tags == null) {
+            return null;
+        }
+        // latest tag is the first
+        for (NamedTagEventList list : tags) {
+            List<TagEvent> items = list.getItems();
+            if (items == null) {
+                continue;
+            }
+            // latest item is the first
+            for (TagEvent item : items) {
+                String image = item.getImage();
+                if (image != null && !image.equals("")) {
+                    return image;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits for the given ImageStream to have a tagged image; returning as soon as the tag appears.
+     * <p>
+     * The current state is checked first so there is no delay if the image is already tagged;
+     * otherwise we watch the ImageStream rather than polling it.
+     *
+     * @param listener is notified of the last seen version of the ImageStream; which is null if it was never found
+     * @throws TimeoutException if no tagged image appears before the timeout
+     */
+    public static String waitForLatestImage(OpenShiftClient client, String namespace, String name, long timeoutMillis, AtomicReference<ImageStream> listener) throws InterruptedException, TimeoutException {
+        ImageStream current = client.imageStreams().inNamespace(namespace).withName(name).get();
+        listener.set(current);
+        String image = latestImage(current);
+        if (image != null) {
+            return image;
+        }
+
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        Watch watch = client.imageStreams().inNamespace(namespace).withName(name).watch(new Watcher<ImageStream>() {
+            @Override
+            public void eventReceived(Action action, ImageStream resource) {
+                if (action == Action.DELETED) {
+                    listener.set(null);
+                    return;
+                }
+                listener.set(resource);
+                String latest = latestImage(resource);
+                if (latest != null) {
+                    future.complete(latest);
+                }
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+                if (cause != null) {
+                    future.completeExceptionally(cause);
+                }
+            }
+        });
+        try {
+            // lets check again now the watch is established in case we missed an update
+            current = client.imageStreams().inNamespace(namespace).withName(name).get();
+            if (current != null) {
+                listener.set(current);
+                image = latestImage(current);
+                if (image != null) {
+                    return image;
+                }
+            }
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new KubernetesClientException("Failed to watch ImageStream " + name + " in namespace " + namespace + " due to " + e.getCause(), e.getCause());
+        } finally {
+            watch.close();
+        }
+    }
+}
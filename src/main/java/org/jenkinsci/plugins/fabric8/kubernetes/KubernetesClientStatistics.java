@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.kubernetes;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of the statistics of the {@link KubernetesClients} pool
+ */
+public class KubernetesClientStatistics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int clientCount;
+    private final long hits;
+    private final long misses;
+    private final int connectionCount;
+    private final int idleConnectionCount;
+    private final long readRequestCount;
+    private final long coalescedReadCount;
+
+    public KubernetesClientStatistics(int clientCount, long hits, long misses, int connectionCount, int idleConnectionCount,
+                                      long readRequestCount, long coalescedReadCount) {
+        this.clientCount = clientCount;
+        this.hits = hits;
+        this.misses = misses;
+        this.connectionCount = connectionCount;
+        this.idleConnectionCount = idleConnectionCount;
+        this.readRequestCount = readRequestCount;
+        this.coalescedReadCount = coalescedReadCount;
+    }
+
+    @Override
+    public String toString() {
+        return "KubernetesClientStatistics{" +
+                "clientCount=" + clientCount +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", connectionCount=" + connectionCount +
+                ", idleConnectionCount=" + idleConnectionCount +
+                ", readRequestCount=" + readRequestCount +
+                ", coalescedReadCount=" + coalescedReadCount +
+                '}';
+    }
+
+    public int getClientCount() {
+        return clientCount;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    public int getIdleConnectionCount() {
+        return idleConnectionCount;
+    }
+
+    /**
+     * Returns the number of coalesced reads which were actually sent to the API server
+     */
+    public long getReadRequestCount() {
+        return readRequestCount;
+    }
+
+    /**
+     * Returns the number of reads which shared the result of an identical read already in flight
+     */
+    public long getCoalescedReadCount() {
+        return coalescedReadCount;
+    }
+}
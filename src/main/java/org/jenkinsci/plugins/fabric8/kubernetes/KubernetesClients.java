@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.kubernetes;
+
+import hudson.init.Terminator;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.openshift.client.DefaultOpenShiftClient;
+import io.fabric8.openshift.client.OpenShiftClient;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A controller wide registry of Kubernetes and OpenShift clients so that pipeline steps share the same
+ * HTTP connection pool rather than creating a new client (and parsing the kube config) on every call.
+ * <p>
+ * Clients are keyed by master URL, namespace and credentials and are closed when Jenkins terminates
+ * so callers must never close a client returned from this registry.
+ */
+public class KubernetesClients {
+    private static final Logger LOG = Logger.getLogger(KubernetesClients.class.getName());
+
+    private static final KubernetesClients instance = new KubernetesClients();
+
+    private final ConcurrentMap<String, Entry> clients = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final SingleFlight reads = new SingleFlight();
+    private volatile Config defaultConfig;
+
+    public static KubernetesClients getInstance() {
+        return instance;
+    }
+
+    /**
+     * Closes all the pooled clients when Jenkins shuts down
+     */
+    @Terminator
+    public static void shutdown() {
+        getInstance().closeAll();
+    }
+
+    /**
+     * Returns the shared client for the auto configured kubernetes cluster
+     */
+    public KubernetesClient kubernetesClient() {
+        return kubernetesClient(getDefaultConfig());
+    }
+
+    /**
+     * Returns the shared client for the given configuration
+     */
+    public KubernetesClient kubernetesClient(Config config) {
+        return getEntry(config).getKubernetesClient();
+    }
+
+    /**
+     * Returns the shared OpenShift client for the auto configured cluster
+     */
+    public OpenShiftClient openShiftClient() {
+        return openShiftClient(getDefaultConfig());
+    }
+
+    /**
+     * Returns the shared OpenShift client for the given configuration
+     */
+    public OpenShiftClient openShiftClient(Config config) {
+        return getEntry(config).getOpenShiftClient();
+    }
+
+    /**
+     * Returns the current pool statistics
+     */
+    public KubernetesClientStatistics getStatistics() {
+        int connections = 0;
+        int idleConnections = 0;
+        for (Entry entry : clients.values()) {
+            for (Object client : entry.getClients()) {
+                if (client instanceof HttpClientAware) {
+                    OkHttpClient httpClient = ((HttpClientAware) client).getHttpClient();
+                    if (httpClient != null) {
+                        ConnectionPool pool = httpClient.connectionPool();
+                        connections += pool.connectionCount();
+                        idleConnections += pool.idleConnectionCount();
+                    }
+                }
+            }
+        }
+        return new KubernetesClientStatistics(clients.size(), hits.get(), misses.get(), connections, idleConnections,
+                reads.getRequestCount(), reads.getCoalescedCount());
+    }
+
+    /**
+     * Performs a read against the API server, sharing the result with any concurrent callers of the same key
+     * so that many builds asking for the same thing at once only result in one request
+     */
+    public <T> T coalesce(String key, Callable<T> loader) throws Exception {
+        return reads.execute(key, loader);
+    }
+
+    /**
+     * Closes and removes all the pooled clients
+     */
+    public void closeAll() {
+        List<Entry> entries = new ArrayList<>(clients.values());
+        clients.clear();
+        for (Entry entry : entries) {
+            entry.close();
+        }
+    }
+
+    protected Config getDefaultConfig() {
+        Config answer = defaultConfig;
+        if (answer == null) {
+            synchronized (this) {
+                answer = defaultConfig;
+                if (answer == null) {
+                    answer = Config.autoConfigure();
+                    defaultConfig = answer;
+                }
+            }
+        }
+        return answer;
+    }
+
+    protected Entry getEntry(Config config) {
+        String key = createKey(config);
+        Entry entry = clients.get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        return clients.computeIfAbsent(key, k -> {
+            misses.incrementAndGet();
+            return new Entry(config);
+        });
+    }
+
+    /**
+     * Creates the pool key from the master URL, namespace and a digest of the credentials
+     */
+    protected static String createKey(Config config) {
+        String credentials = config.getOauthToken() + "|" + config.getUsername() + "|" + config.getPassword() + "|" +
+                config.getClientCertFile() + "|" + config.getClientCertData();
+        return config.getMasterUrl() + "|" + config.getNamespace() + "|" + DigestUtils.sha256Hex(credentials);
+    }
+
+    protected static class Entry {
+        private final Config config;
+        private final KubernetesClient kubernetesClient;
+        private volatile OpenShiftClient openShiftClient;
+
+        public Entry(Config config) {
+            this.config = config;
+            this.kubernetesClient = new DefaultKubernetesClient(config);
+        }
+
+        public KubernetesClient getKubernetesClient() {
+            return kubernetesClient;
+        }
+
+        public OpenShiftClient getOpenShiftClient() {
+            OpenShiftClient answer = openShiftClient;
+            if (answer == null) {
+                synchronized (this) {
+                    answer = openShiftClient;
+                    if (answer == null) {
+                        answer = new DefaultOpenShiftClient(config);
+                        openShiftClient = answer;
+                    }
+                }
+            }
+            return answer;
+        }
+
+        public List<Object> getClients() {
+            List<Object> answer = new ArrayList<>(2);
+            answer.add(kubernetesClient);
+            if (openShiftClient != null) {
+                answer.add(openShiftClient);
+            }
+            return answer;
+        }
+
+        public void close() {
+            for (Object client : getClients()) {
+                try {
+                    ((AutoCloseable) client).close();
+                } catch (Exception e) {
+                    LOG.log(Level.WARNING, "Failed to close client for " + config.getMasterUrl() + " due to " + e, e);
+                }
+            }
+        }
+    }
+}
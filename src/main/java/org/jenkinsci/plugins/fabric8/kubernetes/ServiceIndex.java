@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.kubernetes;
+
+import io.fabric8.kubernetes.api.model.EndpointSubset;
+import io.fabric8.kubernetes.api.model.Endpoints;
+import io.fabric8.kubernetes.api.model.EndpointsList;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceList;
+import io.fabric8.kubernetes.api.model.ServiceSpec;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A snapshot of the services and their endpoints in a namespace which is loaded with a single list call of each
+ * so that many service existence checks can be answered without a request per check
+ */
+public class ServiceIndex {
+    private final String namespace;
+    private final Map<String, Service> services;
+    private final Map<String, Endpoints> endpoints;
+
+    public ServiceIndex(String namespace, Map<String, Service> services, Map<String, Endpoints> endpoints) {
+        this.namespace = namespace;
+        this.services = services;
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * Loads the services and endpoints of the given namespace
+     */
+    public static ServiceIndex load(KubernetesClient client, String namespace) {
+        Map<String, Service> services = new HashMap<>();
+        ServiceList serviceList = client.services().inNamespace(namespace).list();
+        if (serviceList != null && serviceList.getItems() != null) {
+            for (Service service : serviceList.getItems()) {
+                String name = getName(service.getMetadata());
+                if (name != null) {
+                    services.put(name, service);
+                }
+            }
+        }
+        Map<String, Endpoints> endpoints = new HashMap<>();
+        EndpointsList endpointsList = client.endpoints().inNamespace(namespace).list();
+        if (endpointsList != null && endpointsList.getItems() != null) {
+            for (Endpoints endpoint : endpointsList.getItems()) {
+                String name = getName(endpoint.getMetadata());
+                if (name != null) {
+                    endpoints.put(name, endpoint);
+                }
+            }
+        }
+        return new ServiceIndex(namespace, services, endpoints);
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceIndex{" +
+                "namespace='" + namespace + '\'' +
+                ", services=" + services.keySet() +
+                '}';
+    }
+
+    /**
+     * Returns true if the service exists
+     */
+    public boolean hasService(String name) {
+        return services.containsKey(name);
+    }
+
+    /**
+     * Returns true if the service exists and can be used; i.e. it has at least one ready endpoint address or it is an
+     * <code>ExternalName</code> or selector-less service whose endpoints are not managed by Kubernetes
+     */
+    public boolean isReady(String name) {
+        Service service = services.get(name);
+        if (service == null) {
+            return false;
+        }
+        ServiceSpec spec = service.getSpec();
+        if (spec == null || "ExternalName".equals(spec.getType()) || spec.getSelector() == null || spec.getSelector().isEmpty()) {
+            return true;
+        }
+        return hasReadyEndpoints(name);
+    }
+
+    /**
+     * Returns true if the service has at least one ready endpoint address
+     */
+    public boolean hasReadyEndpoints(String name) {
+        Endpoints endpoint = endpoints.get(name);
+        if (endpoint != null) {
+            List<EndpointSubset> subsets = endpoint.getSubsets();
+            if (subsets != null) {
+                for (EndpointSubset subset : subsets) {
+                    if (subset.getAddresses() != null && !subset.getAddresses().isEmpty()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public Service getService(String name) {
+        return services.get(name);
+    }
+
+    public Set<String> getServiceNames() {
+        return Collections.unmodifiableSet(services.keySet());
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    private static String getName(ObjectMeta metadata) {
+        return metadata != null ? metadata.getName() : null;
+    }
+}
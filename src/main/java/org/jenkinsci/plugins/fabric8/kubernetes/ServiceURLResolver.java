@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.kubernetes;
+
+import hudson.init.Terminator;
+import io.fabric8.kubernetes.api.KubernetesHelper;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the URLs of services resolved via {@link KubernetesHelper#getServiceURL(KubernetesClient, String, String, String, boolean)}
+ * per namespace, service, protocol and external flag.
+ * <p>
+ * The cached URLs of a namespace are discarded whenever a Service, Route or Ingress in the namespace changes.
+ * If the resources cannot be watched the URLs are only cached for a short time to live instead.
+ */
+public class ServiceURLResolver {
+    private static final Logger LOG = Logger.getLogger(ServiceURLResolver.class.getName());
+
+    public static final long DEFAULT_UNWATCHED_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final ServiceURLResolver instance = new ServiceURLResolver();
+
+    private final ConcurrentMap<String, NamespaceURLs> namespaces = new ConcurrentHashMap<>();
+    private final List<ServiceURLListener> listeners = new CopyOnWriteArrayList<>();
+    private long unwatchedTtlMillis = DEFAULT_UNWATCHED_TTL_MILLIS;
+
+    public static ServiceURLResolver getInstance() {
+        return instance;
+    }
+
+    @Terminator
+    public static void shutdown() {
+        getInstance().close();
+    }
+
+    /**
+     * Returns the URL of the given service or null if it cannot be resolved
+     */
+    public String getServiceURL(String serviceName, String namespace, String protocol, boolean external) {
+        return getNamespaceURLs(namespace).getServiceURL(serviceName, protocol, external);
+    }
+
+    /**
+     * Registers a listener which is notified whenever a Service, Route or Ingress changes so that
+     * any previously resolved URLs in the namespace may have changed
+     */
+    public void addListener(ServiceURLListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ServiceURLListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Discards all the cached URLs and closes the watches
+     */
+    public void close() {
+        List<NamespaceURLs> list = new ArrayList<>(namespaces.values());
+        namespaces.clear();
+        for (NamespaceURLs urls : list) {
+            urls.close();
+        }
+    }
+
+    public long getUnwatchedTtlMillis() {
+        return unwatchedTtlMillis;
+    }
+
+    public void setUnwatchedTtlMillis(long unwatchedTtlMillis) {
+        this.unwatchedTtlMillis = unwatchedTtlMillis;
+    }
+
+    protected KubernetesClient getKubernetesClient() {
+        return KubernetesClients.getInstance().kubernetesClient();
+    }
+
+    protected NamespaceURLs getNamespaceURLs(String namespace) {
+        return namespaces.computeIfAbsent(namespace, NamespaceURLs::new);
+    }
+
+    /**
+     * Notified when the services, routes or ingresses of a namespace change
+     */
+    public interface ServiceURLListener {
+        void onServiceURLsChanged(String namespace, String kind, String name);
+    }
+
+    protected class NamespaceURLs {
+        private final String namespace;
+        private final ConcurrentMap<String, ResolvedURL> urls = new ConcurrentHashMap<>();
+        private final List<Watch> watches = new ArrayList<>();
+        private volatile boolean watching;
+        private volatile long watchFailedTime;
+
+        public NamespaceURLs(String namespace) {
+            this.namespace = namespace;
+        }
+
+        public String getServiceURL(String serviceName, String protocol, boolean external) {
+            boolean watched = ensureWatching();
+            String key = serviceName + "/" + protocol + "/" + external;
+            long now = System.currentTimeMillis();
+            ResolvedURL resolved = urls.get(key);
+            if (resolved == null || (!watched && now - resolved.getTimestamp() > unwatchedTtlMillis)) {
+                String url = KubernetesHelper.getServiceURL(getKubernetesClient(), serviceName, namespace, protocol, external);
+                resolved = new ResolvedURL(url, now);
+                urls.put(key, resolved);
+            }
+            return resolved.getUrl();
+        }
+
+        public synchronized void close() {
+            watching = false;
+            // closing a watch calls Watcher.onClose on this thread so lets take the watches out of the list first
+            List<Watch> closing = new ArrayList<>(watches);
+            watches.clear();
+            for (Watch watch : closing) {
+                try {
+                    watch.close();
+                } catch (Exception e) {
+                    LOG.log(Level.FINE, "Failed to close watch in namespace " + namespace + " due to " + e, e);
+                }
+            }
+            urls.clear();
+        }
+
+        /**
+         * Lazily watches the resources which affect service URLs returning false if they could not be watched
+         */
+        protected synchronized boolean ensureWatching() {
+            if (watching) {
+                return true;
+            }
+            if (System.currentTimeMillis() - watchFailedTime < unwatchedTtlMillis) {
+                return false;
+            }
+            KubernetesClient client = getKubernetesClient();
+            try {
+                watches.add(client.services().inNamespace(namespace).watch(new InvalidatingWatcher<>("Service")));
+                watches.add(client.extensions().ingresses().inNamespace(namespace).watch(new InvalidatingWatcher<>("Ingress")));
+                if (ClusterCapabilities.getInstance().isOpenShift()) {
+                    watches.add(KubernetesClients.getInstance().openShiftClient().routes().inNamespace(namespace).watch(new InvalidatingWatcher<>("Route")));
+                }
+                // lets discard anything resolved before we were watching
+                urls.clear();
+                watching = true;
+                return true;
+            } catch (Exception e) {
+                LOG.log(Level.FINE, "Could not watch services in namespace " + namespace + " due to " + e, e);
+                close();
+                watchFailedTime = System.currentTimeMillis();
+                return false;
+            }
+        }
+
+        protected void invalidate(String kind, String name) {
+            urls.clear();
+            for (ServiceURLListener listener : listeners) {
+                try {
+                    listener.onServiceURLsChanged(namespace, kind, name);
+                } catch (Exception e) {
+                    LOG.log(Level.WARNING, "Failed to notify listener " + listener + " due to " + e, e);
+                }
+            }
+        }
+
+        protected class InvalidatingWatcher<T extends HasMetadata> implements Watcher<T> {
+            private final String kind;
+
+            public InvalidatingWatcher(String kind) {
+                this.kind = kind;
+            }
+
+            @Override
+            public void eventReceived(Action action, T resource) {
+                String name = resource != null && resource.getMetadata() != null ? resource.getMetadata().getName() : null;
+                invalidate(kind, name);
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+                if (cause != null) {
+                    LOG.log(Level.FINE, "Watch on " + kind + " in namespace " + namespace + " closed due to " + cause, cause);
+                }
+                // lets re-establish all the watches on next use; unless we are already closing them
+                if (watching) {
+                    close();
+                }
+            }
+        }
+    }
+
+    protected static class ResolvedURL {
+        private final String url;
+        private final long timestamp;
+
+        public ResolvedURL(String url, long timestamp) {
+            this.url = url;
+            this.timestamp = timestamp;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class ServiceConstants {
     public static final String ARTIFACT_REPOSITORY_RELEASE_URL = "http://artifact-repository/content/repositories/staging/";
 
     public static final String JENKINS_ARCHIVE_REPO = "http://archives.jenkins-ci.org/";
+    public static final String JENKINS_UPDATE_CENTER_URL = "https://updates.jenkins.io/update-center.actual.json";
 
     public static final String SONATYPE_REPOSITORY_URL = "https://oss.sonatype.org";
 
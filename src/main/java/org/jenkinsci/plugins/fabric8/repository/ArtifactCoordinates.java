@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import io.fabric8.utils.Strings;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The coordinates of a maven artifact
+ */
+public class ArtifactCoordinates implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String groupId;
+    private final String artifactId;
+    private final String version;
+    private final String extension;
+
+    public ArtifactCoordinates(String groupId, String artifactId, String version, String extension) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.extension = Strings.isNullOrBlank(extension) ? "jar" : extension;
+    }
+
+    /**
+     * Parses coordinates of the form <code>groupId:artifactId[:extension[:version]]</code> using the default
+     * version if none is specified
+     */
+    public static ArtifactCoordinates parse(String text, String defaultVersion) {
+        String[] values = text.trim().split(":");
+        if (values.length < 2 || values.length > 4) {
+            throw new IllegalArgumentException("Invalid artifact coordinates " + text + " expected groupId:artifactId[:extension[:version]]");
+        }
+        return new ArtifactCoordinates(values[0], values[1], values.length > 3 ? values[3] : defaultVersion,
+                values.length > 2 ? values[2] : null);
+    }
+
+    /**
+     * Returns the file extension of the main artifact of a project with the given packaging
+     */
+    public static String extensionForPackaging(String packaging) {
+        if (Strings.isNullOrBlank(packaging)) {
+            return "jar";
+        }
+        switch (packaging) {
+            case "bundle":
+            case "maven-plugin":
+            case "ejb":
+                return "jar";
+            default:
+                return packaging;
+        }
+    }
+
+    /**
+     * Returns the path of the artifact relative to the root of a maven repository
+     */
+    public String getPath() {
+        return groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version + "." + extension;
+    }
+
+    @Override
+    public String toString() {
+        return groupId + ":" + artifactId + ":" + extension + ":" + version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ArtifactCoordinates that = (ArtifactCoordinates) o;
+        return Objects.equals(groupId, that.groupId) &&
+                Objects.equals(artifactId, that.artifactId) &&
+                Objects.equals(version, that.version) &&
+                Objects.equals(extension, that.extension);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(groupId, artifactId, version, extension);
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
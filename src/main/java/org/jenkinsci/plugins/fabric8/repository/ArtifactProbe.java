@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import hudson.init.Terminator;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks whether files such as released artifacts are available in a remote repository without downloading them.
+ * <p>
+ * A <code>HEAD</code> request is used; if a server does not support <code>HEAD</code> then a <code>GET</code> of
+ * the first byte is used for that host from then on. A <code>400</code> response to a <code>HEAD</code> is only
+ * retried as a <code>GET</code> for that probe. All probes share one client so connections are kept alive
+ * and reused between polls.
+ */
+public class ArtifactProbe {
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(20);
+    public static final int MAX_IDLE_CONNECTIONS = 10;
+    public static final long KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final ArtifactProbe instance = new ArtifactProbe();
+
+    private final Set<String> hostsRejectingHead = ConcurrentHashMap.newKeySet();
+    private final AtomicLong headRequests = new AtomicLong();
+    private final AtomicLong rangedGetRequests = new AtomicLong();
+    private volatile OkHttpClient httpClient;
+
+    public static ArtifactProbe getInstance() {
+        return instance;
+    }
+
+    @Terminator
+    public static void shutdown() {
+        getInstance().close();
+    }
+
+    /**
+     * Probes the given URL
+     */
+    public ProbeResult probe(String url) {
+        return probe(url, null);
+    }
+
+    /**
+     * Probes the given URL adding the HTTP calls to the given collection while they are in flight so that
+     * they can be cancelled from another thread
+     */
+    public ProbeResult probe(String url, Collection<Call> inFlight) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            return new ProbeResult(url, ProbeResult.Status.HTTP_ERROR, -1, "Invalid URL");
+        }
+        try {
+            String host = httpUrl.host() + ":" + httpUrl.port();
+            if (!hostsRejectingHead.contains(host)) {
+                headRequests.incrementAndGet();
+                int code = execute(new Request.Builder().url(httpUrl).head().build(), inFlight);
+                if (isHeadNotSupported(code)) {
+                    hostsRejectingHead.add(host);
+                } else if (code != 400) {
+                    return ProbeResult.fromStatusCode(url, code, "HEAD");
+                }
+                // a 400 may only apply to this request so it is retried as a GET but HEAD is still used for the host
+            }
+            rangedGetRequests.incrementAndGet();
+            int code = execute(new Request.Builder().url(httpUrl).header("Range", "bytes=0-0").get().build(), inFlight);
+            return ProbeResult.fromStatusCode(url, code, "GET bytes=0-0");
+        } catch (IOException e) {
+            return ProbeResult.networkError(url, e);
+        }
+    }
+
+    public long getHeadRequests() {
+        return headRequests.get();
+    }
+
+    public long getRangedGetRequests() {
+        return rangedGetRequests.get();
+    }
+
+    public synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            httpClient = new OkHttpClient.Builder()
+                    .connectTimeout(DEFAULT_CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .readTimeout(DEFAULT_READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS))
+                    .build();
+        }
+        return httpClient;
+    }
+
+    public synchronized void close() {
+        if (httpClient != null) {
+            httpClient.connectionPool().evictAll();
+            httpClient = null;
+        }
+        hostsRejectingHead.clear();
+    }
+
+    protected int execute(Request request, Collection<Call> inFlight) throws IOException {
+        Call call = getHttpClient().newCall(request);
+        if (inFlight != null) {
+            inFlight.add(call);
+        }
+        try (Response response = call.execute()) {
+            // never read the body; if a server ignores the range header the connection is dropped rather than
+            // downloading the whole file
+            return response.code();
+        } finally {
+            if (inFlight != null) {
+                inFlight.remove(call);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the status code means the server never supports HEAD requests
+     */
+    protected static boolean isHeadNotSupported(int code) {
+        return code == 405 || code == 501;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Waits for a number of artifacts to appear in a repository, or any of a {@link RepositorySet}, by probing all the
+ * missing artifacts concurrently on each poll. Artifacts drop out of the poll set as soon as they are found.
+ */
+public class ArtifactSyncWaiter implements AutoCloseable {
+    private final RepositorySet repositories;
+    private final Set<ArtifactCoordinates> pending;
+    private final Map<ArtifactCoordinates, Long> timeToSync = new LinkedHashMap<>();
+    private final Map<ArtifactCoordinates, ProbeResult> lastResults = new LinkedHashMap<>();
+    private final long startTime = System.currentTimeMillis();
+    private final ExecutorService executor;
+
+    public ArtifactSyncWaiter(String repositoryUrl, Collection<ArtifactCoordinates> artifacts, int maxParallel) {
+        this(new RepositorySet(repositoryUrl), artifacts, maxParallel);
+    }
+
+    public ArtifactSyncWaiter(RepositorySet repositories, Collection<ArtifactCoordinates> artifacts, int maxParallel) {
+        this.repositories = repositories;
+        this.pending = new LinkedHashSet<>(artifacts);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, Math.min(maxParallel, pending.size())));
+    }
+
+    /**
+     * Probes all the pending artifacts once
+     *
+     * @return the artifacts which were found by this poll
+     */
+    public List<ArtifactCoordinates> poll() throws InterruptedException {
+        List<ArtifactCoordinates> artifacts = new ArrayList<>(pending);
+        List<Future<ProbeResult>> futures = new ArrayList<>();
+        for (ArtifactCoordinates artifact : artifacts) {
+            futures.add(executor.submit(() -> repositories.probe(artifact.getPath())));
+        }
+        List<ArtifactCoordinates> answer = new ArrayList<>();
+        for (int i = 0; i < artifacts.size(); i++) {
+            ArtifactCoordinates artifact = artifacts.get(i);
+            ProbeResult result;
+            try {
+                result = futures.get(i).get();
+            } catch (ExecutionException e) {
+                result = ProbeResult.networkError(artifact.getPath(), e);
+            }
+            lastResults.put(artifact, result);
+            if (result.isAvailable()) {
+                pending.remove(artifact);
+                timeToSync.put(artifact, System.currentTimeMillis() - startTime);
+                answer.add(artifact);
+            }
+        }
+        return answer;
+    }
+
+    public boolean isComplete() {
+        return pending.isEmpty();
+    }
+
+    public Set<ArtifactCoordinates> getPending() {
+        return Collections.unmodifiableSet(pending);
+    }
+
+    /**
+     * Returns how long each artifact which has been found took to appear in millis since this waiter was created
+     */
+    public Map<ArtifactCoordinates, Long> getTimeToSync() {
+        return Collections.unmodifiableMap(timeToSync);
+    }
+
+    /**
+     * Returns the result of the most recent probe of each artifact
+     */
+    public Map<ArtifactCoordinates, ProbeResult> getLastResults() {
+        return Collections.unmodifiableMap(lastResults);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The <code>latest</code> and <code>release</code> versions from a <code>maven-metadata.xml</code> file
+ */
+public class MavenMetadata implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final XMLInputFactory inputFactory = createInputFactory();
+
+    private final String latest;
+    private final String release;
+
+    public MavenMetadata(String latest, String release) {
+        this.latest = latest;
+        this.release = release;
+    }
+
+    /**
+     * Parses the versions from the given metadata; reading only as far as the <code>latest</code> and
+     * <code>release</code> elements rather than the whole list of versions
+     */
+    public static MavenMetadata parse(InputStream in) throws IOException {
+        String latest = null;
+        String release = null;
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                int depth = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    } else if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+                        // the elements we want are in /metadata/versioning
+                        if (depth == 3 && "latest".equals(name)) {
+                            latest = reader.getElementText().trim();
+                            depth--;
+                        } else if (depth == 3 && "release".equals(name)) {
+                            release = reader.getElementText().trim();
+                            depth--;
+                        } else if (depth == 3 && "versions".equals(name) && (latest != null || release != null)) {
+                            // the versions come after latest and release so there is nothing more to find
+                            break;
+                        }
+                        if (latest != null && release != null) {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse maven metadata due to " + e, e);
+        }
+        return new MavenMetadata(latest, release);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    @Override
+    public String toString() {
+        return "MavenMetadata{" +
+                "latest='" + latest + '\'' +
+                ", release='" + release + '\'' +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MavenMetadata that = (MavenMetadata) o;
+        return Objects.equals(latest, that.latest) &&
+                Objects.equals(release, that.release);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(latest, release);
+    }
+
+    /**
+     * Returns the most recently deployed version which may be a snapshot or null if it is not known
+     */
+    public String getLatest() {
+        return latest;
+    }
+
+    /**
+     * Returns the most recently released version or null if it is not known
+     */
+    public String getRelease() {
+        return release;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A controller wide cache of <code>maven-metadata.xml</code> lookups keyed by URL.
+ * <p>
+ * Cached entries are revalidated with <code>If-None-Match</code> and <code>If-Modified-Since</code> so an unchanged
+ * file costs a <code>304 Not Modified</code> response; and not at all if it was checked within the last few seconds.
+ */
+public class MavenMetadataCache {
+    public static final int MAX_ENTRIES = 1024;
+    public static final long DEFAULT_REVALIDATE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final MavenMetadataCache instance = new MavenMetadataCache();
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private long revalidateMillis = DEFAULT_REVALIDATE_MILLIS;
+
+    public static MavenMetadataCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the metadata at the given URL
+     *
+     * @throws FileNotFoundException if there is no metadata at the URL
+     */
+    public MavenMetadata get(String url) throws IOException {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(url);
+        }
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.checkedTime < revalidateMillis) {
+            hits.incrementAndGet();
+            return entry.metadata;
+        }
+        Request.Builder builder = new Request.Builder().url(url).get();
+        if (entry != null) {
+            if (entry.etag != null) {
+                builder.header("If-None-Match", entry.etag);
+            }
+            if (entry.lastModified != null) {
+                builder.header("If-Modified-Since", entry.lastModified);
+            }
+        }
+        Request request = builder.build();
+        Entry answer;
+        try (Response response = ArtifactProbe.getInstance().getHttpClient().newCall(request).execute()) {
+            if (response.code() == 304 && entry != null) {
+                notModified.incrementAndGet();
+                answer = new Entry(entry.metadata, entry.etag, entry.lastModified, now);
+            } else if (response.code() == 404) {
+                throw new FileNotFoundException(url);
+            } else if (!response.isSuccessful()) {
+                throw new IOException("Failed to GET " + url + " status: " + response.code());
+            } else {
+                fetched.incrementAndGet();
+                MavenMetadata metadata;
+                try (InputStream in = response.body().byteStream()) {
+                    metadata = MavenMetadata.parse(in);
+                }
+                answer = new Entry(metadata, response.header("ETag"), response.header("Last-Modified"), now);
+            }
+        }
+        synchronized (entries) {
+            entries.put(url, answer);
+        }
+        return answer.metadata;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered without any request
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups answered by a <code>304 Not Modified</code> response
+     */
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    /**
+     * Returns the number of times metadata was downloaded and parsed
+     */
+    public long getFetched() {
+        return fetched.get();
+    }
+
+    public long getRevalidateMillis() {
+        return revalidateMillis;
+    }
+
+    public void setRevalidateMillis(long revalidateMillis) {
+        this.revalidateMillis = revalidateMillis;
+    }
+
+    protected static class Entry {
+        private final MavenMetadata metadata;
+        private final String etag;
+        private final String lastModified;
+        private final long checkedTime;
+
+        public Entry(MavenMetadata metadata, String etag, String lastModified, long checkedTime) {
+            this.metadata = metadata;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.checkedTime = checkedTime;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import java.io.Serializable;
+
+/**
+ * The result of probing whether a file is available in a remote repository
+ */
+public class ProbeResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        /**
+         * The file exists
+         */
+        AVAILABLE,
+        /**
+         * The server replied 404 or 410 so the file is not there yet
+         */
+        NOT_FOUND,
+        /**
+         * The server replied 401 or 403 so polling again will not help without other credentials
+         */
+        UNAUTHORIZED,
+        /**
+         * The server replied with some other unexpected status code
+         */
+        HTTP_ERROR,
+        /**
+         * The server could not be reached or did not reply in time
+         */
+        NETWORK_ERROR
+    }
+
+    private final String url;
+    private final Status status;
+    private final int statusCode;
+    private final String message;
+
+    public ProbeResult(String url, Status status, int statusCode, String message) {
+        this.url = url;
+        this.status = status;
+        this.statusCode = statusCode;
+        this.message = message;
+    }
+
+    public static ProbeResult fromStatusCode(String url, int statusCode, String message) {
+        Status status;
+        if (statusCode >= 200 && statusCode < 300) {
+            status = Status.AVAILABLE;
+        } else if (statusCode == 404 || statusCode == 410) {
+            status = Status.NOT_FOUND;
+        } else if (statusCode == 401 || statusCode == 403) {
+            status = Status.UNAUTHORIZED;
+        } else {
+            status = Status.HTTP_ERROR;
+        }
+        return new ProbeResult(url, status, statusCode, message);
+    }
+
+    public static ProbeResult networkError(String url, Exception e) {
+        return new ProbeResult(url, Status.NETWORK_ERROR, -1, e.toString());
+    }
+
+    @Override
+    public String toString() {
+        return "ProbeResult{" +
+                "url='" + url + '\'' +
+                ", status=" + status +
+                ", statusCode=" + statusCode +
+                ", message='" + message + '\'' +
+                '}';
+    }
+
+    public boolean isAvailable() {
+        return status == Status.AVAILABLE;
+    }
+
+    /**
+     * Returns true if probing again is not expected to give a different result
+     */
+    public boolean isPermanentFailure() {
+        return status == Status.UNAUTHORIZED;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the HTTP status code or -1 if there was no response
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
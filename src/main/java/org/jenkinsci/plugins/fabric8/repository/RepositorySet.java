@@ -0,0 +1,269 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import io.fabric8.utils.Strings;
+import okhttp3.Call;
+import org.jenkinsci.plugins.fabric8.model.ServiceConstants;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * An ordered list of maven repositories which may each be the first to contain a release; such as the Sonatype
+ * releases repository, our staging repository and maven central.
+ * <p>
+ * Lookups are sent to all the repositories in parallel and the first positive answer wins; the lookups still
+ * in flight are then cancelled. The latency of each repository is tracked as an exponentially weighted moving
+ * average shared by all builds; repositories which are much slower than the fastest one are only asked once
+ * the fastest one has had time to answer.
+ */
+public class RepositorySet {
+    public static final double LATENCY_SMOOTHING = 0.3;
+    public static final double SLOW_LATENCY_FACTOR = 3.0;
+    public static final long FAILURE_LATENCY_MILLIS = ArtifactProbe.DEFAULT_READ_TIMEOUT_MILLIS;
+
+    private static final ConcurrentMap<String, MirrorStatistics> statistics = new ConcurrentHashMap<>();
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "fabric8-repository-set-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final List<String> repositoryUrls = new ArrayList<>();
+
+    public RepositorySet(List<String> repositoryUrls) {
+        for (String url : repositoryUrls) {
+            if (Strings.notEmpty(url)) {
+                String repositoryUrl = Strings.stripSuffix(url, "/");
+                if (!this.repositoryUrls.contains(repositoryUrl)) {
+                    this.repositoryUrls.add(repositoryUrl);
+                }
+            }
+        }
+    }
+
+    public RepositorySet(String... repositoryUrls) {
+        this(Arrays.asList(repositoryUrls));
+    }
+
+    /**
+     * Returns the repositories a release may appear in first
+     */
+    public static RepositorySet releaseRepositories() {
+        return new RepositorySet(ServiceConstants.SONATYPE_REPOSITORY_URL + "/content/repositories/releases",
+                ServiceConstants.ARTIFACT_REPOSITORY_RELEASE_URL, ServiceConstants.MAVEN_CENTRAL);
+    }
+
+    /**
+     * Returns the latency statistics of every repository used so far keyed by URL
+     */
+    public static Map<String, MirrorStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * Probes the given path in all the repositories returning the first available result, or if the file is
+     * in none of them the result of the first repository in the list
+     */
+    public ProbeResult probe(String path) throws InterruptedException {
+        try {
+            return race((url, calls) -> ArtifactProbe.getInstance().probe(url + "/" + path, calls), ProbeResult::isAvailable);
+        } catch (IOException e) {
+            // probes report errors in their result rather than throwing
+            return ProbeResult.networkError(path, e);
+        }
+    }
+
+    /**
+     * Returns the repositories in priority order
+     */
+    public List<String> getRepositoryUrls() {
+        return Collections.unmodifiableList(repositoryUrls);
+    }
+
+    /**
+     * Returns the repositories in the order they are asked; fastest first
+     */
+    public List<String> getRepositoryUrlsFastestFirst() {
+        List<String> answer = new ArrayList<>(repositoryUrls);
+        answer.sort((a, b) -> Double.compare(getAverageLatency(a), getAverageLatency(b)));
+        return answer;
+    }
+
+    protected <T> T race(Lookup<T> lookup, Predicate<T> isHit) throws IOException, InterruptedException {
+        List<String> urls = getRepositoryUrlsFastestFirst();
+        if (urls.isEmpty()) {
+            return null;
+        }
+        double fastest = getAverageLatency(urls.get(0));
+        CompletionService<Attempt<T>> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<Attempt<T>>> futures = new ArrayList<>();
+        List<Collection<Call>> calls = new ArrayList<>();
+        for (String url : urls) {
+            long startDelay = getStartDelay(getAverageLatency(url), fastest);
+            Collection<Call> inFlight = ConcurrentHashMap.newKeySet();
+            calls.add(inFlight);
+            futures.add(completionService.submit(() -> attempt(url, startDelay, lookup, inFlight)));
+        }
+        Map<String, Attempt<T>> attempts = new ConcurrentHashMap<>();
+        try {
+            for (int i = 0; i < urls.size(); i++) {
+                Attempt<T> attempt;
+                try {
+                    attempt = completionService.take().get();
+                } catch (ExecutionException e) {
+                    continue;
+                }
+                attempts.put(attempt.url, attempt);
+                if (attempt.error == null && isHit.test(attempt.result)) {
+                    return attempt.result;
+                }
+            }
+        } finally {
+            for (Future<Attempt<T>> future : futures) {
+                future.cancel(true);
+            }
+            for (Collection<Call> inFlight : calls) {
+                for (Call call : inFlight) {
+                    call.cancel();
+                }
+            }
+        }
+        // no hits so lets use the answer of the repository with the highest priority
+        IOException error = null;
+        for (String url : repositoryUrls) {
+            Attempt<T> attempt = attempts.get(url);
+            if (attempt != null) {
+                if (attempt.error == null) {
+                    return attempt.result;
+                }
+                error = attempt.error;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return null;
+    }
+
+    protected <T> Attempt<T> attempt(String url, long startDelay, Lookup<T> lookup, Collection<Call> inFlight) throws InterruptedException {
+        if (startDelay > 0) {
+            Thread.sleep(startDelay);
+        }
+        long start = System.currentTimeMillis();
+        // lookups cancelled because another repository answered first are not recorded as they did not finish
+        try {
+            T result = lookup.lookup(url, inFlight);
+            if (!Thread.currentThread().isInterrupted()) {
+                getMirrorStatistics(url).record(System.currentTimeMillis() - start);
+            }
+            return new Attempt<>(url, result, null);
+        } catch (IOException e) {
+            if (!Thread.currentThread().isInterrupted()) {
+                getMirrorStatistics(url).record(Math.max(FAILURE_LATENCY_MILLIS, System.currentTimeMillis() - start));
+            }
+            return new Attempt<>(url, null, e);
+        }
+    }
+
+    /**
+     * Returns how long to wait before asking a repository with the given average latency so that a much slower
+     * repository is only asked once the fastest one has had time to answer
+     */
+    protected static long getStartDelay(double latency, double fastest) {
+        return latency > fastest * SLOW_LATENCY_FACTOR ? Math.round(fastest) : 0L;
+    }
+
+    protected static double getAverageLatency(String url) {
+        MirrorStatistics answer = statistics.get(url);
+        return answer != null ? answer.getAverageLatencyMillis() : 0.0;
+    }
+
+    protected static MirrorStatistics getMirrorStatistics(String url) {
+        return statistics.computeIfAbsent(url, k -> new MirrorStatistics());
+    }
+
+    protected interface Lookup<T> {
+        T lookup(String repositoryUrl, Collection<Call> inFlight) throws IOException;
+    }
+
+    protected static class Attempt<T> {
+        private final String url;
+        private final T result;
+        private final IOException error;
+
+        public Attempt(String url, T result, IOException error) {
+            this.url = url;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    /**
+     * The moving average latency of a repository
+     */
+    public static class MirrorStatistics {
+        private double averageLatencyMillis;
+        private long requests;
+
+        public synchronized void record(long latencyMillis) {
+            if (requests == 0) {
+                averageLatencyMillis = latencyMillis;
+            } else {
+                averageLatencyMillis = LATENCY_SMOOTHING * latencyMillis + (1.0 - LATENCY_SMOOTHING) * averageLatencyMillis;
+            }
+            requests++;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "MirrorStatistics{" +
+                    "averageLatencyMillis=" + averageLatencyMillis +
+                    ", requests=" + requests +
+                    '}';
+        }
+
+        public synchronized double getAverageLatencyMillis() {
+            return averageLatencyMillis;
+        }
+
+        public synchronized long getRequests() {
+            return requests;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import hudson.util.VersionNumber;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The latest version of every plugin in a Jenkins update center, shared by all the builds waiting on plugin releases.
+ * <p>
+ * The update center JSON is streamed so only the plugin names and versions are kept in memory. It is downloaded at
+ * most once per refresh period and revalidated with <code>If-None-Match</code> so an unchanged index costs a
+ * <code>304 Not Modified</code> response.
+ */
+public class UpdateCenterIndex {
+    public static final long DEFAULT_REFRESH_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final ConcurrentMap<String, UpdateCenterIndex> indexes = new ConcurrentHashMap<>();
+
+    private final String url;
+    private Map<String, String> versions = Collections.emptyMap();
+    private String etag;
+    private String lastModified;
+    private long checkedTime;
+    private long refreshMillis = DEFAULT_REFRESH_MILLIS;
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+
+    public UpdateCenterIndex(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Returns the shared index of the update center at the given URL
+     */
+    public static UpdateCenterIndex getInstance(String url) {
+        return indexes.computeIfAbsent(url, UpdateCenterIndex::new);
+    }
+
+    /**
+     * Returns the latest version of the given plugin or null if it is not in the update center
+     */
+    public String getVersion(String plugin) throws IOException {
+        return getVersions().get(plugin);
+    }
+
+    /**
+     * Returns true if the given version of the plugin or a later one is in the update center
+     */
+    public boolean isReleased(String plugin, String version) throws IOException {
+        String latest = getVersion(plugin);
+        return latest != null && compareVersions(latest, version) >= 0;
+    }
+
+    /**
+     * Returns the latest version of each plugin keyed by plugin name; refreshing the index if it is stale
+     */
+    public synchronized Map<String, String> getVersions() throws IOException {
+        long now = System.currentTimeMillis();
+        if (checkedTime > 0 && now - checkedTime < refreshMillis) {
+            return versions;
+        }
+        Request.Builder builder = new Request.Builder().url(url).get();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        try (Response response = ArtifactProbe.getInstance().getHttpClient().newCall(builder.build()).execute()) {
+            if (response.code() == 304 && checkedTime > 0) {
+                notModified.incrementAndGet();
+            } else if (!response.isSuccessful()) {
+                throw new IOException("Failed to GET " + url + " status: " + response.code());
+            } else {
+                fetched.incrementAndGet();
+                try (InputStream in = response.body().byteStream()) {
+                    versions = Collections.unmodifiableMap(parse(in));
+                }
+                etag = response.header("ETag");
+                lastModified = response.header("Last-Modified");
+            }
+        }
+        checkedTime = now;
+        return versions;
+    }
+
+    /**
+     * Streams the plugin versions out of an update center JSON document which may be wrapped in the
+     * <code>updateCenter.post(...)</code> JSONP callback of <code>update-center.json</code>
+     */
+    public static Map<String, String> parse(InputStream in) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(in);
+        int ch = input.read();
+        while (ch >= 0 && ch != '{') {
+            ch = input.read();
+        }
+        if (ch < 0) {
+            throw new IOException("No JSON object in update center");
+        }
+        input.unread(ch);
+
+        Map<String, String> answer = new HashMap<>();
+        try (JsonParser parser = jsonFactory.createParser(input)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("plugins".equals(field) && token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String plugin = parser.getCurrentName();
+                        String version = parsePluginVersion(parser);
+                        if (version != null) {
+                            answer.put(plugin, version);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return answer;
+    }
+
+    private static String parsePluginVersion(JsonParser parser) throws IOException {
+        String version = null;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("version".equals(field)) {
+                version = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Compares versions the same way as the Jenkins update center so that <code>1.2.10</code> is newer than <code>1.2.9</code>
+     * and qualified versions such as <code>1.0-SNAPSHOT</code> or <code>2.0-beta-1</code> are older than the release
+     */
+    public static int compareVersions(String v1, String v2) {
+        return new VersionNumber(v1).compareTo(new VersionNumber(v2));
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the number of refreshes answered by a <code>304 Not Modified</code> response
+     */
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    /**
+     * Returns the number of times the index was downloaded and parsed
+     */
+    public long getFetched() {
+        return fetched.get();
+    }
+
+    public synchronized long getRefreshMillis() {
+        return refreshMillis;
+    }
+
+    public synchronized void setRefreshMillis(long refreshMillis) {
+        this.refreshMillis = refreshMillis;
+    }
+}
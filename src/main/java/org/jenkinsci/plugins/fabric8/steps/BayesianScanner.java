@@ -46,7 +46,7 @@ public class BayesianScanner extends CommandSupport implements Function<Bayesian
             Fabric8Commands flow = new Fabric8Commands(this);
             final Utils utils = new Utils(this);
             echo("Checking " + serviceName + " exists");
-            if (flow.hasService(serviceName)) {
+            if (flow.hasReadyService(serviceName)) {
                 try {
                     sh("mvn io.github.stackinfo:stackinfo-maven-plugin:0.2:prepare");
                     retry(3, new Callable<Object>() {
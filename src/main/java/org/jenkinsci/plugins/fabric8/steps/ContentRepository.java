@@ -39,7 +39,7 @@ public class ContentRepository extends CommandSupport implements Function<Conten
         if (config.isUseContentRepository()) {
             Fabric8Commands flow = new Fabric8Commands(this);
             echo("Checking " + serviceName + " exists");
-            if (flow.hasService(serviceName)) {
+            if (flow.hasReadyService(serviceName)) {
                 try {
                     //sh 'mvn site site:deploy'
                     echo("mvn site disabled");
@@ -23,6 +23,7 @@ import org.jenkinsci.plugins.fabric8.CommandSupport;
 import org.jenkinsci.plugins.fabric8.Fabric8Commands;
 import org.jenkinsci.plugins.fabric8.FailedBuildException;
 import org.jenkinsci.plugins.fabric8.Utils;
+import org.jenkinsci.plugins.fabric8.kubernetes.BuildAnnotationBuffer;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -46,6 +47,19 @@ public class MavenRelease extends CommandSupport implements Function<MavenReleas
 
     @Step
     public String apply(Arguments args) {
+        BuildAnnotationBuffer annotations = getRunCache().getBuildAnnotations();
+        annotations.beginBatch();
+        try {
+            return release(args);
+        } finally {
+            // write all the annotations collected during the release to the Build in one go
+            if (annotations.endBatch()) {
+                new Utils(this).flushBuildAnnotations();
+            }
+        }
+    }
+
+    protected String release(Arguments args) {
         Fabric8Commands flow = new Fabric8Commands(this);
         Utils utils = new Utils(this);
 
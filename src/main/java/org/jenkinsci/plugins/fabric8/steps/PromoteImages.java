@@ -64,8 +64,9 @@ public class PromoteImages extends CommandSupport implements Function<PromoteIma
 
         return container("docker", () -> {
             Fabric8Commands flow = new Fabric8Commands(PromoteImages.this);
+            final boolean singleNode = flow.isSingleNode();
             for (final String image : images) {
-                if (flow.isSingleNode()) {
+                if (singleNode) {
                     sh("docker tag " + org + "/" + image + ":" + tag + " " + toRegistry + "/" + org + "/" + image + ":" + tag);
                 } else {
                     String registryHost = getDockerRegistryHost();
@@ -97,6 +97,8 @@ public class ReleaseProject extends CommandSupport implements Function<ReleasePr
         @Argument
         private String artifactIdToWaitFor = "";
         @Argument
+        private boolean waitForAnyReleaseRepository;
+        @Argument
         private boolean useGitTagForNextVersion;
         @Argument
         private boolean helmPush;
@@ -135,6 +137,7 @@ public class ReleaseProject extends CommandSupport implements Function<ReleasePr
                     ", groupId='" + groupId + '\'' +
                     ", artifactExtensionToWaitFor='" + artifactExtensionToWaitFor + '\'' +
                     ", artifactIdToWaitFor='" + artifactIdToWaitFor + '\'' +
+                    ", waitForAnyReleaseRepository=" + waitForAnyReleaseRepository +
                     '}';
         }
 
@@ -187,6 +190,7 @@ public class ReleaseProject extends CommandSupport implements Function<ReleasePr
             if (Strings.notEmpty(repositoryToWaitFor)) {
                 arguments.setRepositoryUrl(repositoryToWaitFor);
             }
+            arguments.setAnyReleaseRepository(waitForAnyReleaseRepository);
             return arguments;
         }
 
@@ -289,6 +293,18 @@ public class ReleaseProject extends CommandSupport implements Function<ReleasePr
             this.artifactIdToWaitFor = artifactIdToWaitFor;
         }
 
+        /**
+         * Returns true if the release is complete once the artifact is in any of the release repositories rather
+         * than only in the repository to wait for
+         */
+        public boolean isWaitForAnyReleaseRepository() {
+            return waitForAnyReleaseRepository;
+        }
+
+        public void setWaitForAnyReleaseRepository(boolean waitForAnyReleaseRepository) {
+            this.waitForAnyReleaseRepository = waitForAnyReleaseRepository;
+        }
+
         public boolean isUseGitTagForNextVersion() {
             return useGitTagForNextVersion;
         }
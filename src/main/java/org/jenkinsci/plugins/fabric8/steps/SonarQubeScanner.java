@@ -48,7 +48,7 @@ public class SonarQubeScanner extends CommandSupport implements Function<SonarQu
         if (config.isRunSonarScanner()) {
             Fabric8Commands flow = new Fabric8Commands(this);
             echo("Checking " + serviceName + " exists");
-            if (flow.hasService(serviceName)) {
+            if (flow.hasReadyService(serviceName)) {
                 try {
                     final File srcDirectory = new Pwd(this).apply();
                     File tmpDir = new Pwd(this).apply(true);
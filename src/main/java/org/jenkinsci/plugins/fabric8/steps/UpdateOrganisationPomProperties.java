@@ -0,0 +1,409 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.steps;
+
+import io.fabric8.utils.Strings;
+import io.jenkins.functions.Argument;
+import io.jenkins.functions.Step;
+import org.apache.maven.model.Model;
+import org.jenkinsci.plugins.fabric8.CommandSupport;
+import org.jenkinsci.plugins.fabric8.Fabric8Commands;
+import org.jenkinsci.plugins.fabric8.FailedBuildException;
+import org.jenkinsci.plugins.fabric8.Logger;
+import org.jenkinsci.plugins.fabric8.github.GitDataClient;
+import org.jenkinsci.plugins.fabric8.github.GitHubRequestScheduler;
+import org.jenkinsci.plugins.fabric8.github.GitHubRequestScheduler.Priority;
+import org.jenkinsci.plugins.fabric8.helpers.MavenHelpers;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GitHub;
+
+import javax.validation.constraints.NotEmpty;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Updates pom properties in all the repositories of a GitHub organisation by creating a Pull Request on each of them.
+ * <p>
+ * Only the <code>pom.xml</code> of each repository is fetched and the change is committed using the GitHub git data API
+ * so no repository is cloned. Repositories are processed concurrently; the output of each is logged once it completes
+ * and the step fails after all of them have been tried if any could not be updated.
+ */
+@Step(displayName = "Updates maven pom properties across all the repositories of a GitHub organisation")
+public class UpdateOrganisationPomProperties extends CommandSupport implements Function<UpdateOrganisationPomProperties.Arguments, List<String>> {
+    public UpdateOrganisationPomProperties() {
+    }
+
+    public UpdateOrganisationPomProperties(CommandSupport parentStep) {
+        super(parentStep);
+    }
+
+    @Override
+    @Step
+    public List<String> apply(Arguments config) {
+        final String organisation = config.getOrganisation();
+        if (Strings.isNullOrBlank(organisation)) {
+            error("Missing parameter: organisation");
+            return null;
+        }
+        final Map<String, String> properties = loadProperties(config);
+        if (properties.isEmpty()) {
+            echo("No pom properties to update");
+            return new ArrayList<>();
+        }
+        echo("About to try replace versions: " + properties);
+
+        final Fabric8Commands flow = new Fabric8Commands(this);
+        final GitHub gitHub = flow.createGitHub();
+        final GitDataClient client = new GitDataClient(gitHub);
+        final String message = createCommitMessage(properties);
+
+        List<GitDataClient.Repository> repositories = findRepositories(client, config);
+        echo("Now updating " + repositories.size() + " projects within organisation: " + organisation);
+
+        List<RepositoryUpdate> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(config.getMaxParallel(), repositories.size())));
+        try {
+            List<Future<RepositoryUpdate>> futures = new ArrayList<>();
+            for (GitDataClient.Repository repository : repositories) {
+                futures.add(executor.submit(() -> tryUpdateRepository(client, repository, config.getPomLocation(), properties, message)));
+            }
+            for (Future<RepositoryUpdate> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FailedBuildException("Interrupted updating projects within organisation " + organisation, e);
+        } catch (ExecutionException e) {
+            throw new FailedBuildException("Failed to update projects within organisation " + organisation + " due to " + e.getCause(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<UpdatedProject> updated = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        for (RepositoryUpdate result : results) {
+            if (!result.getOutput().isEmpty()) {
+                echo(result.getOutput());
+            }
+            if (result.getFailure() != null) {
+                failed.add(result.getProject());
+            } else if (result.getUpdatedProject() != null) {
+                updated.add(result.getUpdatedProject());
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new FailedBuildException("Failed to update " + failed.size() + " of " + results.size() +
+                    " projects within organisation " + organisation + ": " + failed);
+        }
+
+        List<String> answer = new ArrayList<>();
+        for (UpdatedProject project : updated) {
+            answer.add(project.getPullRequest().getHtmlUrl().toString());
+        }
+        if (config.isWaitUntilMerged()) {
+            // the pull requests are all open now so waiting on them one at a time takes as long as the slowest one
+            for (UpdatedProject project : updated) {
+                new WaitUntilPullRequestMerged(this).apply(new WaitUntilPullRequestMerged.Arguments(project.getPullRequest().getNumber(), project.getProject()));
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the properties to update; either the configured property or all the properties of the local pom
+     */
+    protected Map<String, String> loadProperties(Arguments config) {
+        Map<String, String> answer = new TreeMap<>();
+        if (Strings.notEmpty(config.getPropertyName())) {
+            answer.put(config.getPropertyName(), config.getVersion());
+            return answer;
+        }
+        Model model;
+        try {
+            model = MavenHelpers.loadMavenPom(readFile(config.getLocalPomLocation()));
+        } catch (Exception e) {
+            throw new FailedBuildException("Failed to parse " + config.getLocalPomLocation() + " due to " + e, e);
+        }
+        if (model != null) {
+            for (String name : model.getProperties().stringPropertyNames()) {
+                answer.put(name, model.getProperties().getProperty(name));
+            }
+        }
+        return answer;
+    }
+
+    protected List<GitDataClient.Repository> findRepositories(GitDataClient client, Arguments config) {
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CD);
+        try {
+            List<String> repos = config.getRepos();
+            if (repos == null || repos.isEmpty()) {
+                return client.getOrganisationRepositories(config.getOrganisation());
+            }
+            List<GitDataClient.Repository> answer = new ArrayList<>();
+            for (String repo : repos) {
+                answer.add(client.getRepository(config.getOrganisation() + "/" + repo.trim()));
+            }
+            return answer;
+        } catch (Exception e) {
+            throw new FailedBuildException("Failed to find the repositories of organisation " + config.getOrganisation() + " due to " + e, e);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+    }
+
+    /**
+     * Updates the repository on a worker thread capturing its output and any failure so that they can be
+     * reported by the step thread
+     */
+    protected RepositoryUpdate tryUpdateRepository(GitDataClient client, GitDataClient.Repository repository,
+                                                   String pomLocation, Map<String, String> properties, String message) throws Exception {
+        String project = repository.getFullName();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(buffer, true, "UTF-8")) {
+            UpdateOrganisationPomProperties worker = new UpdateOrganisationPomProperties(this);
+            worker.setLogger(new Logger(out));
+            UpdatedProject updated = null;
+            Exception failure = null;
+            try {
+                updated = worker.updateRepository(new Fabric8Commands(worker), client, repository, pomLocation, properties, message);
+            } catch (Exception e) {
+                failure = e;
+                worker.error("Failed to update project " + project + " due to " + e, e);
+            }
+            return new RepositoryUpdate(project, updated, failure, buffer.toString("UTF-8").trim());
+        }
+    }
+
+    /**
+     * Commits the updated pom of the repository on a new branch and creates a Pull Request for it
+     *
+     * @return the Pull Request or null if the repository has no pom or it does not need changing
+     */
+    protected UpdatedProject updateRepository(Fabric8Commands flow, GitDataClient client, GitDataClient.Repository repository,
+                                              String pomLocation, Map<String, String> properties, String message) throws Exception {
+        String project = repository.getFullName();
+        String branch = "versionUpdate" + UUID.randomUUID().toString();
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CD);
+        try {
+            GitDataClient.Commit head = client.getBranchHead(project, repository.getDefaultBranch());
+            String xml = client.getFileContent(project, pomLocation, head.getSha());
+            if (xml == null) {
+                echo("Ignoring project " + project + " as it has no " + pomLocation);
+                return null;
+            }
+            boolean changed = false;
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                String pom = MavenHelpers.updatePomProperty(xml, entry.getKey(), entry.getValue());
+                if (pom != null) {
+                    echo("project " + project + " updated property " + entry.getKey() + " to " + entry.getValue());
+                    xml = pom;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                return null;
+            }
+            client.commitFileOnNewBranch(project, head, pomLocation, xml, message, branch);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
+
+        GHPullRequest pullRequest = flow.createPullRequest(message, project, branch, repository.getDefaultBranch());
+        echo("received Pull Request Id: " + pullRequest.getNumber());
+        flow.addMergeCommentToPullRequest(project, pullRequest.getNumber());
+        return new UpdatedProject(project, pullRequest);
+    }
+
+    protected static String createCommitMessage(Map<String, String> properties) {
+        if (properties.size() == 1) {
+            Map.Entry<String, String> entry = properties.entrySet().iterator().next();
+            return "Update pom property " + entry.getKey() + " to " + entry.getValue();
+        }
+        return "Update pom property versions";
+    }
+
+    /**
+     * The outcome of updating a repository along with the output logged while doing so
+     */
+    public static class RepositoryUpdate {
+        private final String project;
+        private final UpdatedProject updatedProject;
+        private final Exception failure;
+        private final String output;
+
+        public RepositoryUpdate(String project, UpdatedProject updatedProject, Exception failure, String output) {
+            this.project = project;
+            this.updatedProject = updatedProject;
+            this.failure = failure;
+            this.output = output;
+        }
+
+        public String getProject() {
+            return project;
+        }
+
+        /**
+         * Returns the updated project or null if the repository did not need changing or could not be updated
+         */
+        public UpdatedProject getUpdatedProject() {
+            return updatedProject;
+        }
+
+        public Exception getFailure() {
+            return failure;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+    }
+
+    public static class UpdatedProject {
+        private final String project;
+        private final GHPullRequest pullRequest;
+
+        public UpdatedProject(String project, GHPullRequest pullRequest) {
+            this.project = project;
+            this.pullRequest = pullRequest;
+        }
+
+        public String getProject() {
+            return project;
+        }
+
+        public GHPullRequest getPullRequest() {
+            return pullRequest;
+        }
+    }
+
+    public static class Arguments implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Argument
+        @NotEmpty
+        private String organisation = "";
+        @Argument
+        private List<String> repos = new ArrayList<>();
+        @Argument
+        private String propertyName = "";
+        @Argument
+        private String version = "";
+        @Argument
+        private String localPomLocation = "pom.xml";
+        @Argument
+        private String pomLocation = "pom.xml";
+        @Argument
+        private int maxParallel = 8;
+        @Argument
+        private boolean waitUntilMerged = true;
+
+        public Arguments() {
+        }
+
+        public Arguments(String organisation) {
+            this.organisation = organisation;
+        }
+
+        @Override
+        public String toString() {
+            return "Arguments{" +
+                    "organisation='" + organisation + '\'' +
+                    ", repos=" + repos +
+                    ", propertyName='" + propertyName + '\'' +
+                    ", version='" + version + '\'' +
+                    ", localPomLocation='" + localPomLocation + '\'' +
+                    ", pomLocation='" + pomLocation + '\'' +
+                    ", maxParallel=" + maxParallel +
+                    ", waitUntilMerged=" + waitUntilMerged +
+                    '}';
+        }
+
+        public String getOrganisation() {
+            return organisation;
+        }
+
+        public void setOrganisation(String organisation) {
+            this.organisation = organisation;
+        }
+
+        public List<String> getRepos() {
+            return repos;
+        }
+
+        public void setRepos(List<String> repos) {
+            this.repos = repos;
+        }
+
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        public void setPropertyName(String propertyName) {
+            this.propertyName = propertyName;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public void setVersion(String version) {
+            this.version = version;
+        }
+
+        public String getLocalPomLocation() {
+            return localPomLocation;
+        }
+
+        public void setLocalPomLocation(String localPomLocation) {
+            this.localPomLocation = localPomLocation;
+        }
+
+        public String getPomLocation() {
+            return pomLocation;
+        }
+
+        public void setPomLocation(String pomLocation) {
+            this.pomLocation = pomLocation;
+        }
+
+        public int getMaxParallel() {
+            return maxParallel;
+        }
+
+        public void setMaxParallel(int maxParallel) {
+            this.maxParallel = maxParallel;
+        }
+
+        public boolean isWaitUntilMerged() {
+            return waitUntilMerged;
+        }
+
+        public void setWaitUntilMerged(boolean waitUntilMerged) {
+            this.waitUntilMerged = waitUntilMerged;
+        }
+    }
+}
@@ -18,16 +18,30 @@ package org.jenkinsci.plugins.fabric8.steps;
 import com.google.common.base.Strings;
 import io.jenkins.functions.Argument;
 import io.jenkins.functions.Step;
+import org.apache.maven.model.Model;
 import org.jenkinsci.plugins.fabric8.CommandSupport;
-import org.jenkinsci.plugins.fabric8.Fabric8Commands;
+import org.jenkinsci.plugins.fabric8.FailedBuildException;
+import org.jenkinsci.plugins.fabric8.PermanentFailureException;
+import org.jenkinsci.plugins.fabric8.WaitPolicy;
+import org.jenkinsci.plugins.fabric8.WaitStatistics;
 import org.jenkinsci.plugins.fabric8.model.ServiceConstants;
+import org.jenkinsci.plugins.fabric8.repository.ArtifactCoordinates;
+import org.jenkinsci.plugins.fabric8.repository.ArtifactSyncWaiter;
+import org.jenkinsci.plugins.fabric8.repository.ProbeResult;
+import org.jenkinsci.plugins.fabric8.repository.RepositorySet;
 
 import javax.validation.constraints.NotEmpty;
+import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
- * Waits for a maven artifact to be in the maven central repository
+ * Waits for maven artifacts to be in the maven central repository
  */
 @Step(displayName = "Waits for an artifact to be synchronized to a central registry")
 public class WaitUntilArtifactSyncedWithCentral extends CommandSupport implements Function<WaitUntilArtifactSyncedWithCentral.Arguments, String> {
@@ -41,42 +55,123 @@ public class WaitUntilArtifactSyncedWithCentral extends CommandSupport implement
     @Override
     @Step
     public String apply(Arguments config) {
-        final Fabric8Commands flow = new Fabric8Commands(this);
-
-        final String groupId = config.groupId;
-        final String artifactId = config.artifactId;
         final String version = config.version;
-        final String ext = config.extension;
-
-        if (Strings.isNullOrEmpty(groupId) || Strings.isNullOrEmpty(artifactId) || Strings.isNullOrEmpty(version)) {
+        if (Strings.isNullOrEmpty(version)) {
+            error("Must specify full maven coordinates but was given: " + config);
+            return null;
+        }
+        final List<ArtifactCoordinates> artifacts = findArtifacts(config);
+        if (artifacts.isEmpty()) {
             error("Must specify full maven coordinates but was given: " + config);
             return null;
         }
 
-        waitUntil(() -> retry(3, () -> flow.isArtifactAvailableInRepo(config.repositoryUrl, groupId, artifactId, version, ext)));
+        RepositorySet repositories = config.createRepositorySet();
+        String location = repositories.getRepositoryUrls().size() == 1 ? config.repositoryUrl : "any of " + repositories.getRepositoryUrls();
+        echo("Waiting for " + artifacts.size() + " artifact(s) to be available in " + location);
+        try (ArtifactSyncWaiter waiter = new ArtifactSyncWaiter(repositories, artifacts, config.maxParallel)) {
+            WaitStatistics statistics = waitFor(config.createWaitPolicy(), () -> {
+                for (ArtifactCoordinates artifact : waiter.poll()) {
+                    echo(artifact + " is available after " + waiter.getTimeToSync().get(artifact) + " millis");
+                }
+                for (ArtifactCoordinates artifact : waiter.getPending()) {
+                    ProbeResult result = waiter.getLastResults().get(artifact);
+                    if (result != null && result.isPermanentFailure()) {
+                        throw new PermanentFailureException("Cannot check " + result.getUrl() + " due to " + result.getStatus() + " " + result.getStatusCode());
+                    }
+                }
+                return waiter.isComplete();
+            });
+            echo("Checked " + statistics.getAttempts() + " times over " + statistics.getElapsedMillis() + " millis averaging " +
+                    statistics.getAverageCheckMillis() + " millis per check");
+            if (!statistics.isSatisfied()) {
+                throw new FailedBuildException("Timed out waiting for " + waiter.getPending().size() + " of " + artifacts.size() +
+                        " artifact(s) " + version + " to be available in " + location + ": " + waiter.getPending());
+            }
+        }
 
-        String message = "" + groupId + "/" + artifactId + " " + version + " released and available in maven central";
+        String releaseLocation = config.anyReleaseRepository ? "a release repository" : "maven central";
+        String message;
+        if (artifacts.size() == 1) {
+            ArtifactCoordinates artifact = artifacts.get(0);
+            message = "" + artifact.getGroupId() + "/" + artifact.getArtifactId() + " " + version + " released and available in " + releaseLocation;
+        } else {
+            message = "" + artifacts.size() + " artifacts " + version + " released and available in " + releaseLocation;
+        }
         echo(message);
         hubotSend(message);
         return null;
     }
 
+    /**
+     * Returns the artifacts to wait for from the coordinates and artifacts arguments and the reactor modules
+     */
+    protected List<ArtifactCoordinates> findArtifacts(Arguments config) {
+        Set<ArtifactCoordinates> answer = new LinkedHashSet<>();
+        if (!Strings.isNullOrEmpty(config.groupId) && !Strings.isNullOrEmpty(config.artifactId)) {
+            answer.add(new ArtifactCoordinates(config.groupId, config.artifactId, config.version, config.extension));
+        }
+        if (config.artifacts != null) {
+            for (String text : config.artifacts) {
+                answer.add(ArtifactCoordinates.parse(text, config.version));
+            }
+        }
+        if (config.reactorModules) {
+            addReactorModules(answer, new File(getCurrentDir(), "pom.xml"), null, config.version);
+        }
+        return new ArrayList<>(answer);
+    }
+
+    protected void addReactorModules(Set<ArtifactCoordinates> artifacts, File pomFile, String parentGroupId, String version) {
+        Model model;
+        try {
+            ReadMavenPom.Arguments arguments = new ReadMavenPom.Arguments();
+            arguments.setFile(pomFile);
+            model = new ReadMavenPom(this).apply(arguments);
+        } catch (Exception e) {
+            throw new FailedBuildException("Failed to read " + pomFile + " due to " + e, e);
+        }
+        String groupId = model.getGroupId();
+        if (Strings.isNullOrEmpty(groupId)) {
+            groupId = model.getParent() != null ? model.getParent().getGroupId() : parentGroupId;
+        }
+        artifacts.add(new ArtifactCoordinates(groupId, model.getArtifactId(), version,
+                ArtifactCoordinates.extensionForPackaging(model.getPackaging())));
+        for (String module : model.getModules()) {
+            addReactorModules(artifacts, new File(new File(pomFile.getParentFile(), module), "pom.xml"), groupId, version);
+        }
+    }
+
     public static class Arguments implements Serializable {
         private static final long serialVersionUID = 1L;
 
         @Argument
         private String repositoryUrl = ServiceConstants.MAVEN_CENTRAL;
         @Argument
-        @NotEmpty
         private String groupId = "";
         @Argument
-        @NotEmpty
         private String artifactId = "";
         @Argument
         @NotEmpty
         private String version = "";
         @Argument
         private String extension = "jar";
+        @Argument
+        private List<String> artifacts = new ArrayList<>();
+        @Argument
+        private boolean reactorModules;
+        @Argument
+        private boolean anyReleaseRepository;
+        @Argument
+        private int maxParallel = 8;
+        @Argument
+        private long initialPollMillis = 5000;
+        @Argument
+        private long maxPollMillis = 60000;
+        @Argument
+        private double pollJitter = 0.2;
+        @Argument
+        private int timeoutMinutes;
 
         public Arguments() {
         }
@@ -95,6 +190,14 @@ public class WaitUntilArtifactSyncedWithCentral extends CommandSupport implement
                     ", artifactId='" + artifactId + '\'' +
                     ", version='" + version + '\'' +
                     ", ext='" + extension + '\'' +
+                    ", artifacts=" + artifacts +
+                    ", reactorModules=" + reactorModules +
+                    ", anyReleaseRepository=" + anyReleaseRepository +
+                    ", maxParallel=" + maxParallel +
+                    ", initialPollMillis=" + initialPollMillis +
+                    ", maxPollMillis=" + maxPollMillis +
+                    ", pollJitter=" + pollJitter +
+                    ", timeoutMinutes=" + timeoutMinutes +
                     '}';
         }
 
@@ -146,6 +249,107 @@ public class WaitUntilArtifactSyncedWithCentral extends CommandSupport implement
         public void setExtension(String extension) {
             this.extension = extension;
         }
+
+        /**
+         * Returns the extra artifacts to wait for as <code>groupId:artifactId[:extension[:version]]</code>
+         */
+        public List<String> getArtifacts() {
+            return artifacts;
+        }
+
+        public void setArtifacts(List<String> artifacts) {
+            this.artifacts = artifacts;
+        }
+
+        /**
+         * Returns true if the artifacts of all the modules of the reactor in the current directory should be waited for
+         */
+        public boolean isReactorModules() {
+            return reactorModules;
+        }
+
+        public void setReactorModules(boolean reactorModules) {
+            this.reactorModules = reactorModules;
+        }
+
+        /**
+         * Returns the repositories to check; the repository URL and, if any release repository will do, the
+         * {@link RepositorySet#releaseRepositories()} too
+         */
+        public RepositorySet createRepositorySet() {
+            List<String> urls = new ArrayList<>();
+            urls.add(repositoryUrl);
+            if (anyReleaseRepository) {
+                urls.addAll(RepositorySet.releaseRepositories().getRepositoryUrls());
+            }
+            return new RepositorySet(urls);
+        }
+
+        /**
+         * Returns true if the artifacts may be found in any of the release repositories, such as the Sonatype
+         * releases repository, rather than only in the repository URL
+         */
+        public boolean isAnyReleaseRepository() {
+            return anyReleaseRepository;
+        }
+
+        public void setAnyReleaseRepository(boolean anyReleaseRepository) {
+            this.anyReleaseRepository = anyReleaseRepository;
+        }
+
+        public int getMaxParallel() {
+            return maxParallel;
+        }
+
+        public void setMaxParallel(int maxParallel) {
+            this.maxParallel = maxParallel;
+        }
+
+        /**
+         * Returns the policy for polling the repository; backing off exponentially from the initial poll delay
+         */
+        public WaitPolicy createWaitPolicy() {
+            return new WaitPolicy(initialPollMillis, maxPollMillis, 2.0, pollJitter,
+                    timeoutMinutes > 0 ? TimeUnit.MINUTES.toMillis(timeoutMinutes) : -1);
+        }
+
+        public long getInitialPollMillis() {
+            return initialPollMillis;
+        }
+
+        public void setInitialPollMillis(long initialPollMillis) {
+            this.initialPollMillis = initialPollMillis;
+        }
+
+        public long getMaxPollMillis() {
+            return maxPollMillis;
+        }
+
+        public void setMaxPollMillis(long maxPollMillis) {
+            this.maxPollMillis = maxPollMillis;
+        }
+
+        /**
+         * Returns the fraction by which each poll delay is randomly varied
+         */
+        public double getPollJitter() {
+            return pollJitter;
+        }
+
+        public void setPollJitter(double pollJitter) {
+            this.pollJitter = pollJitter;
+        }
+
+        /**
+         * Returns how long to wait in minutes before giving up or 0 to wait forever
+         */
+        public int getTimeoutMinutes() {
+            return timeoutMinutes;
+        }
+
+        public void setTimeoutMinutes(int timeoutMinutes) {
+            this.timeoutMinutes = timeoutMinutes;
+        }
     }
 
 }
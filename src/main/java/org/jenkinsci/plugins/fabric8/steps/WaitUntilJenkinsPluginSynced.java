@@ -20,16 +20,27 @@ import io.jenkins.functions.Argument;
 import io.jenkins.functions.Step;
 import org.jenkinsci.plugins.fabric8.CommandSupport;
 import org.jenkinsci.plugins.fabric8.Fabric8Commands;
+import org.jenkinsci.plugins.fabric8.FailedBuildException;
+import org.jenkinsci.plugins.fabric8.PermanentFailureException;
+import org.jenkinsci.plugins.fabric8.WaitPolicy;
+import org.jenkinsci.plugins.fabric8.WaitStatistics;
 import org.jenkinsci.plugins.fabric8.model.ServiceConstants;
+import org.jenkinsci.plugins.fabric8.repository.ProbeResult;
+import org.jenkinsci.plugins.fabric8.repository.UpdateCenterIndex;
 
 import javax.validation.constraints.NotEmpty;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
- * Waits for a jenkins plugin to be available in the Jenkins archive
+ * Waits for jenkins plugins to be available in the Jenkins archive or update center
  */
-@Step(displayName = "Waits for a jenkins plugin to be synchronized with the jenkins plugin archive")
+@Step(displayName = "Waits for jenkins plugins to be synchronized with the jenkins plugin archive or update center")
 public class WaitUntilJenkinsPluginSynced extends CommandSupport implements Function<WaitUntilJenkinsPluginSynced.Arguments, Boolean> {
     public WaitUntilJenkinsPluginSynced() {
     }
@@ -43,28 +54,82 @@ public class WaitUntilJenkinsPluginSynced extends CommandSupport implements Func
     public Boolean apply(Arguments config) {
         final Fabric8Commands flow = new Fabric8Commands(this);
 
-        final String version = config.version;
         final String repo = config.repo;
-        final String name = config.name;
-
-        final String path = "plugins/" + name;
-        final String artifact = name + ".hpi";
-
-        if (Strings.isNullOrEmpty(name) || Strings.isNullOrEmpty(repo) || Strings.isNullOrEmpty(version)) {
+        final Map<String, String> plugins = findPlugins(config);
+        if (plugins.isEmpty() || Strings.isNullOrEmpty(repo) || Strings.isNullOrEmpty(config.version)) {
             error("Missing Jenkins plugin arguments - was given: " + config);
             return null;
         }
 
-
-        if (waitUntil(() -> retry(3, () -> flow.isFileAvailableInRepo(repo, path, version, artifact)))) {
-            String message = "Jenkins plugin " + artifact + " " + version + " released and available in the jenkins plugin archive";
-            echo(message);
-            hubotSend(message);
-            return true;
+        final Map<String, String> pending = new LinkedHashMap<>(plugins);
+        final String location;
+        WaitStatistics statistics;
+        if (config.useUpdateCenter) {
+            final UpdateCenterIndex index = UpdateCenterIndex.getInstance(config.updateCenterUrl);
+            location = "the jenkins update center";
+            statistics = waitFor(config.createWaitPolicy(), () -> retry(3, () -> {
+                for (Map.Entry<String, String> entry : new ArrayList<>(pending.entrySet())) {
+                    if (index.isReleased(entry.getKey(), entry.getValue())) {
+                        echo("Jenkins plugin " + entry.getKey() + " " + entry.getValue() + " is in the update center");
+                        pending.remove(entry.getKey());
+                    }
+                }
+                return pending.isEmpty();
+            }));
         } else {
-            echo("Timed out waiting for Jenkins plugin " + artifact + " " + version + " to be available in the jenkins plugin archive");
+            location = "the jenkins plugin archive";
+            statistics = waitFor(config.createWaitPolicy(), () -> retry(3, () -> {
+                for (Map.Entry<String, String> entry : new ArrayList<>(pending.entrySet())) {
+                    String name = entry.getKey();
+                    ProbeResult result = flow.probeFileInRepo(repo, "plugins/" + name, entry.getValue(), name + ".hpi");
+                    if (result.isPermanentFailure()) {
+                        throw new PermanentFailureException("Cannot check " + result.getUrl() + " due to " + result.getStatus() + " " + result.getStatusCode());
+                    }
+                    if (result.isAvailable()) {
+                        echo("Jenkins plugin " + name + " " + entry.getValue() + " is in the plugin archive");
+                        pending.remove(name);
+                    }
+                }
+                return pending.isEmpty();
+            }));
+        }
+        String description;
+        if (plugins.size() == 1) {
+            Map.Entry<String, String> plugin = plugins.entrySet().iterator().next();
+            description = "Jenkins plugin " + plugin.getKey() + ".hpi " + plugin.getValue();
+        } else {
+            description = "" + plugins.size() + " Jenkins plugins";
+        }
+        echo("Checked for " + description + " " + statistics.getAttempts() + " times over " +
+                statistics.getElapsedMillis() + " millis averaging " + statistics.getAverageCheckMillis() + " millis per check");
+        if (!statistics.isSatisfied()) {
+            throw new FailedBuildException("Timed out waiting for " + pending.keySet() + " to be available in " + location);
         }
-        return false;
+        String message = description + " released and available in " + location;
+        echo(message);
+        hubotSend(message);
+        return true;
+    }
+
+    /**
+     * Returns the version to wait for of each plugin from the name and plugins arguments
+     */
+    protected Map<String, String> findPlugins(Arguments config) {
+        Map<String, String> answer = new LinkedHashMap<>();
+        if (!Strings.isNullOrEmpty(config.name)) {
+            answer.put(config.name, config.version);
+        }
+        if (config.plugins != null) {
+            for (String text : config.plugins) {
+                int idx = text.indexOf(':');
+                if (idx > 0) {
+                    answer.put(text.substring(0, idx), text.substring(idx + 1));
+                } else if (!Strings.isNullOrEmpty(text)) {
+                    answer.put(text, config.version);
+                }
+            }
+        }
+        return answer;
     }
 
 
@@ -74,11 +139,24 @@ public class WaitUntilJenkinsPluginSynced extends CommandSupport implements Func
         @Argument
         private String repo = ServiceConstants.JENKINS_ARCHIVE_REPO;
         @Argument
-        @NotEmpty
         private String name = "";
         @Argument
+        private List<String> plugins = new ArrayList<>();
+        @Argument
         @NotEmpty
         private String version = "";
+        @Argument
+        private boolean useUpdateCenter;
+        @Argument
+        private String updateCenterUrl = ServiceConstants.JENKINS_UPDATE_CENTER_URL;
+        @Argument
+        private long initialPollMillis = 5000;
+        @Argument
+        private long maxPollMillis = 60000;
+        @Argument
+        private double pollJitter = 0.2;
+        @Argument
+        private int timeoutMinutes;
 
         @Override
         public String toString() {
@@ -86,6 +164,13 @@ public class WaitUntilJenkinsPluginSynced extends CommandSupport implements Func
                     "repo='" + repo + '\'' +
                     ", name='" + name + '\'' +
                     ", version='" + version + '\'' +
+                    ", plugins=" + plugins +
+                    ", useUpdateCenter=" + useUpdateCenter +
+                    ", updateCenterUrl='" + updateCenterUrl + '\'' +
+                    ", initialPollMillis=" + initialPollMillis +
+                    ", maxPollMillis=" + maxPollMillis +
+                    ", pollJitter=" + pollJitter +
+                    ", timeoutMinutes=" + timeoutMinutes +
                     '}';
         }
 
@@ -112,6 +197,83 @@ public class WaitUntilJenkinsPluginSynced extends CommandSupport implements Func
         public void setVersion(String version) {
             this.version = version;
         }
+
+        /**
+         * Returns additional plugins to wait for as <code>name</code> or <code>name:version</code>
+         */
+        public List<String> getPlugins() {
+            return plugins;
+        }
+
+        public void setPlugins(List<String> plugins) {
+            this.plugins = plugins;
+        }
+
+        /**
+         * Returns true if the plugins should be looked up in the shared update center index rather than
+         * probing the plugin archive for each plugin
+         */
+        public boolean isUseUpdateCenter() {
+            return useUpdateCenter;
+        }
+
+        public void setUseUpdateCenter(boolean useUpdateCenter) {
+            this.useUpdateCenter = useUpdateCenter;
+        }
+
+        public String getUpdateCenterUrl() {
+            return updateCenterUrl;
+        }
+
+        public void setUpdateCenterUrl(String updateCenterUrl) {
+            this.updateCenterUrl = updateCenterUrl;
+        }
+
+        /**
+         * Returns the policy for polling the repository; backing off exponentially from the initial poll delay
+         */
+        public WaitPolicy createWaitPolicy() {
+            return new WaitPolicy(initialPollMillis, maxPollMillis, 2.0, pollJitter,
+                    timeoutMinutes > 0 ? TimeUnit.MINUTES.toMillis(timeoutMinutes) : -1);
+        }
+
+        public long getInitialPollMillis() {
+            return initialPollMillis;
+        }
+
+        public void setInitialPollMillis(long initialPollMillis) {
+            this.initialPollMillis = initialPollMillis;
+        }
+
+        public long getMaxPollMillis() {
+            return maxPollMillis;
+        }
+
+        public void setMaxPollMillis(long maxPollMillis) {
+            this.maxPollMillis = maxPollMillis;
+        }
+
+        /**
+         * Returns the fraction by which each poll delay is randomly varied
+         */
+        public double getPollJitter() {
+            return pollJitter;
+        }
+
+        public void setPollJitter(double pollJitter) {
+            this.pollJitter = pollJitter;
+        }
+
+        /**
+         * Returns how long to wait in minutes before giving up or 0 to wait forever
+         */
+        public int getTimeoutMinutes() {
+            return timeoutMinutes;
+        }
+
+        public void setTimeoutMinutes(int timeoutMinutes) {
+            this.timeoutMinutes = timeoutMinutes;
+        }
     }
 
 }
@@ -21,18 +21,17 @@ import io.jenkins.functions.Step;
 import org.jenkinsci.plugins.fabric8.CommandSupport;
 import org.jenkinsci.plugins.fabric8.Fabric8Commands;
 import org.jenkinsci.plugins.fabric8.FailedBuildException;
+import org.jenkinsci.plugins.fabric8.github.GitHubRequestScheduler;
+import org.jenkinsci.plugins.fabric8.github.GitHubRequestScheduler.Priority;
+import org.jenkinsci.plugins.fabric8.github.PullRequestState;
+import org.jenkinsci.plugins.fabric8.github.PullRequestWatcher;
 import org.jenkinsci.plugins.fabric8.helpers.GitHelper;
-import org.kohsuke.github.GHCommitPointer;
-import org.kohsuke.github.GHIssueState;
-import org.kohsuke.github.GHPullRequest;
-import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import java.io.Serializable;
 import java.util.LinkedHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 @Step(displayName = "Waits for a Pull Request to be merged")
@@ -64,62 +63,58 @@ public class WaitUntilPullRequestMerged extends CommandSupport implements Functi
 
         echo("Waiting for Pull Request " + prId + " on project " + project);
 
-        final AtomicBoolean notified = new AtomicBoolean(false);
+        boolean notified = false;
 
         // wait until the PR is merged, if there's a merge conflict the notify and wait until PR is finally merged
-        return waitUntil(() -> {
-            GHRepository repository = null;
-            try {
-                repository = gitHub.getRepository(project);
-            } catch (Exception e) {
-                throw new FailedBuildException("Could not find repository " + project, e);
-            }
-
-            GHPullRequest pullRequest = repository.getPullRequest(prId);
-            if (pullRequest != null) {
+        Priority previousPriority = GitHubRequestScheduler.setPriority(Priority.CD);
+        try (PullRequestWatcher.Subscription subscription = PullRequestWatcher.getInstance().subscribe(project)) {
+            PullRequestState pullRequest = null;
+            while (true) {
+                pullRequest = subscription.await(gitHub, prId, pullRequest);
                 if (pullRequest.isMerged()) {
                     echo("Pull Request " + pullRequest.getHtmlUrl() + " is merged");
                     return true;
                 }
-                GHIssueState state = pullRequest.getState();
-                if (state.equals(GHIssueState.CLOSED)) {
+                if (pullRequest.isClosed()) {
                     echo("Pull Request " + pullRequest.getHtmlUrl() + " is closed");
                     return true;
                 }
 
                 String branch = "master";
-                GHCommitPointer head = pullRequest.getHead();
-                if (head != null) {
-                    branch = head.getRef();
+                if (pullRequest.getHeadRef() != null) {
+                    branch = pullRequest.getHeadRef();
                 }
-                if ("failure".equalsIgnoreCase(pullRequest.getMergeableState())) {
-                    if (notified.compareAndSet(false, true)) {
-                        String message = "Pull request was not automatically merged.  Please fix and update Pull Request to continue with release...\n" +
-                                "\n" +
-                                "git clone git@github.com:" + project + ".git\n" +
-                                "cd " + repoName + "\n" +
-                                "git fetch origin pull/" + id + "/head:fixPR" + id + "\n" +
-                                "git checkout fixPR" + id + "\n" +
-                                "\n" +
-                                "  [resolve issue]\n" +
-                                "\n" +
-                                "git commit -a -m 'resolved merge issues caused by release dependency updates'\n" +
-                                "git push origin fixPR" + id + ":" + branch + "\n";
-
-                        echo(message);
-                        hubotSend(message);
-
-
-                        boolean shouldWeWait = requestResolve();
-
-                        if (!shouldWeWait) {
-                            return true;
-                        }
+                if (pullRequest.isConflicted() && !notified) {
+                    notified = true;
+                    String message = "Pull request was not automatically merged.  Please fix and update Pull Request to continue with release...\n" +
+                            "\n" +
+                            "git clone git@github.com:" + project + ".git\n" +
+                            "cd " + repoName + "\n" +
+                            "git fetch origin pull/" + id + "/head:fixPR" + id + "\n" +
+                            "git checkout fixPR" + id + "\n" +
+                            "\n" +
+                            "  [resolve issue]\n" +
+                            "\n" +
+                            "git commit -a -m 'resolved merge issues caused by release dependency updates'\n" +
+                            "git push origin fixPR" + id + ":" + branch + "\n";
+
+                    echo(message);
+                    hubotSend(message);
+
+
+                    boolean shouldWeWait = requestResolve();
+
+                    if (!shouldWeWait) {
+                        return true;
                     }
                 }
             }
-            return false;
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FailedBuildException("Interrupted waiting for Pull Request " + prId + " on project " + project, e);
+        } finally {
+            GitHubRequestScheduler.setPriority(previousPriority);
+        }
     }
 
     public boolean requestResolve() {
@@ -8,6 +8,7 @@ import io.fabric8.kubernetes.client.KubernetesClient
 import io.fabric8.openshift.client.DefaultOpenShiftClient
 import io.fabric8.openshift.client.OpenShiftClient
 import jenkins.model.Jenkins
+import org.jenkinsci.plugins.fabric8.PipelineLookups
 import org.jenkinsci.plugins.fabric8.helpers.MavenHelpers
 
 import java.util.regex.Pattern
@@ -16,9 +17,9 @@ def swizzleImageName(text, match, replace) {
   return Pattern.compile("image: ${match}:(.*)").matcher(text).replaceFirst("image: ${replace}")
 }
 
+@NonCPS
 def getReleaseVersionFromMavenMetadata(url) {
-  def cmd = "curl -L ${url} | grep '<latest' | cut -f2 -d'>'|cut -f1 -d'<'"
-  return sh(script: cmd, returnStdout: true).toString().trim()
+  return PipelineLookups.getLatestVersionFromMavenMetadata(url.toString())
 }
 
 def updatePackageJSONVersion(f, p, v) {
@@ -44,16 +45,15 @@ def loadMavenPom(String fileName = "pom.xml") {
 }
 
 
+// the release version is shared by all builds through the version cache for a few minutes
+@NonCPS
 def getReleaseVersion(String artifact) {
-  def modelMetaData = new XmlSlurper().parse("https://oss.sonatype.org/content/repositories/releases/${artifact}/maven-metadata.xml")
-  def version = modelMetaData.versioning.release.text()
-  return version
+  return PipelineLookups.getReleaseVersion(artifact)
 }
 
+@NonCPS
 def getMavenCentralVersion(String artifact) {
-  def modelMetaData = new XmlSlurper().parse("http://central.maven.org/maven2/${artifact}/maven-metadata.xml")
-  def version = modelMetaData.versioning.release.text()
-  return version
+  return PipelineLookups.getMavenCentralVersion(artifact)
 }
 
 def getVersion(String repo, String artifact) {
@@ -137,14 +137,20 @@ def getRepoIds() {
   return list
 }
 
+@NonCPS
 def getDockerHubImageTags(String image) {
   try {
-    return "https://registry.hub.docker.com/v1/repositories/${image}/tags".toURL().getText()
+    return PipelineLookups.getDockerHubImageTags(image)
   } catch (err) {
     return "NO_IMAGE_FOUND"
   }
 }
 
+@NonCPS
+def dockerImageTagExists(String image, String tag) {
+  return PipelineLookups.dockerImageTagExists(image, tag)
+}
+
 def searchAndReplaceMavenVersionPropertyNoCommit(String property, String newVersion) {
   // example matches <fabric8.version>2.3</fabric8.version> <fabric8.version>2.3.12</fabric8.version> <fabric8.version>2.3.12.5</fabric8.version>
   sh "find -type f -name 'pom.xml' | xargs sed -i -r 's/${property}[0-9][0-9]{0,2}.[0-9][0-9]{0,2}(.[0-9][0-9]{0,2})?(.[0-9][0-9]{0,2})?</${property}${newVersion}</g'"
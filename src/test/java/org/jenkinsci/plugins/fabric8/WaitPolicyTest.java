@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class WaitPolicyTest {
+
+    @Test
+    public void testFixedDelay() throws Exception {
+        WaitPolicy policy = WaitPolicy.fixed(250, -1);
+        Random random = new Random(1);
+        for (int attempt = 1; attempt < 10; attempt++) {
+            assertThat(policy.getDelayMillis(attempt, random)).isEqualTo(250);
+        }
+        assertThat(policy.getDeadline(1000)).isEqualTo(0);
+    }
+
+    @Test
+    public void testExponentialBackoffIsCapped() throws Exception {
+        WaitPolicy policy = new WaitPolicy(1000, 30000, 2.0, 0.0, -1);
+        Random random = new Random(1);
+        assertThat(policy.getDelayMillis(1, random)).isEqualTo(1000);
+        assertThat(policy.getDelayMillis(2, random)).isEqualTo(2000);
+        assertThat(policy.getDelayMillis(3, random)).isEqualTo(4000);
+        assertThat(policy.getDelayMillis(5, random)).isEqualTo(16000);
+        assertThat(policy.getDelayMillis(6, random)).isEqualTo(30000);
+        assertThat(policy.getDelayMillis(1000, random)).isEqualTo(30000);
+    }
+
+    @Test
+    public void testJitterStaysWithinBounds() throws Exception {
+        WaitPolicy policy = WaitPolicy.exponential(1000, 60000, -1);
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(policy.getDelayMillis(1, random)).isBetween(800L, 1200L);
+            assertThat(policy.getDelayMillis(100, random)).isBetween(48000L, 72000L);
+        }
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        WaitPolicy policy = WaitPolicy.exponential(1000, 60000, 5000);
+        assertThat(policy.getDeadline(1000)).isEqualTo(6000);
+    }
+
+    @Test
+    public void testFindPermanentFailure() throws Exception {
+        PermanentFailureException failure = new PermanentFailureException("unauthorized");
+        assertThat(PermanentFailureException.find(new FailedBuildException(new RuntimeException(failure)))).isSameAs(failure);
+        assertThat(PermanentFailureException.find(new FailedBuildException("not found"))).isNull();
+    }
+}
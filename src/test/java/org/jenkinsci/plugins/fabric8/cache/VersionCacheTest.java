@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.cache;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class VersionCacheTest {
+
+    @Test
+    public void testValuesSurviveRestart() throws Exception {
+        File file = createLogFile();
+        VersionCache cache = new VersionCache(file, 10);
+        cache.put("maven-latest:http://central.maven.org/maven2/io/fabric8/fabric8-maven-plugin", "3.5.33", 60000);
+        cache.put("key\twith\ttabs", "line\nbreak\\", 60000);
+        cache.put("removed", "1.0", 60000);
+        cache.remove("removed");
+        cache.close();
+
+        VersionCache reloaded = new VersionCache(file, 10);
+        assertThat(reloaded.get("maven-latest:http://central.maven.org/maven2/io/fabric8/fabric8-maven-plugin")).isEqualTo("3.5.33");
+        assertThat(reloaded.get("key\twith\ttabs")).isEqualTo("line\nbreak\\");
+        assertThat(reloaded.get("removed")).isNull();
+        assertThat(reloaded.getRecords()).isEqualTo(4);
+    }
+
+    @Test
+    public void testExpiryAndEviction() throws Exception {
+        VersionCache cache = new VersionCache(createLogFile(), 2);
+        cache.put("expired", "1.0", 0);
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.getExpirations()).isEqualTo(1);
+
+        cache.put("a", "1", 60000);
+        cache.put("b", "2", 60000);
+        cache.get("a");
+        cache.put("c", "3", 60000);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLoaderOnlyCalledOnMiss() throws Exception {
+        VersionCache cache = new VersionCache(null, 10);
+        assertThat(cache.get("image", 60000, () -> "sha256:abc")).isEqualTo("sha256:abc");
+        assertThat(cache.get("image", 60000, () -> "sha256:def")).isEqualTo("sha256:abc");
+        assertThat(cache.get("missing", 60000, () -> null)).isNull();
+        assertThat(cache.getLoads()).isEqualTo(2);
+        assertThat(cache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        File file = createLogFile();
+        VersionCache cache = new VersionCache(file, 10);
+        for (int i = 0; i < VersionCache.MIN_COMPACT_RECORDS + 10; i++) {
+            cache.put("key", "" + i, 60000);
+        }
+        assertThat(cache.getCompactions()).isGreaterThan(0);
+        assertThat(cache.getRecords()).isLessThan(VersionCache.MIN_COMPACT_RECORDS);
+        cache.close();
+
+        assertThat(new VersionCache(file, 10).get("key")).isEqualTo("" + (VersionCache.MIN_COMPACT_RECORDS + 9));
+    }
+
+    private static File createLogFile() throws Exception {
+        File file = Files.createTempFile("version-cache", ".log").toFile();
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.docker;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class DockerRegistryClientTest {
+
+    @Test
+    public void testParseBearerChallenge() throws Exception {
+        DockerRegistryClient.AuthChallenge challenge = DockerRegistryClient.parseChallenge(
+                "Bearer realm=\"https://auth.docker.io/token\",service=\"registry.docker.io\",scope=\"repository:library/maven:pull\"");
+
+        assertThat(challenge.getScheme()).isEqualTo("Bearer");
+        assertThat(challenge.getParameter("realm")).isEqualTo("https://auth.docker.io/token");
+        assertThat(challenge.getParameter("service")).isEqualTo("registry.docker.io");
+        assertThat(challenge.getParameter("scope")).isEqualTo("repository:library/maven:pull");
+    }
+
+    @Test
+    public void testParseBasicChallenge() throws Exception {
+        DockerRegistryClient.AuthChallenge challenge = DockerRegistryClient.parseChallenge("Basic realm=\"Registry Realm\"");
+
+        assertThat(challenge.getScheme()).isEqualTo("Basic");
+        assertThat(challenge.getParameter("realm")).isEqualTo("Registry Realm");
+        assertThat(DockerRegistryClient.parseChallenge(null)).isNull();
+    }
+
+    @Test
+    public void testParseNextLink() throws Exception {
+        assertThat(DockerRegistryClient.parseNextLink("</v2/fabric8/maven-builder/tags/list?last=2.2.311&n=100>; rel=\"next\""))
+                .isEqualTo("/v2/fabric8/maven-builder/tags/list?last=2.2.311&n=100");
+        assertThat(DockerRegistryClient.parseNextLink(null)).isNull();
+        assertThat(DockerRegistryClient.parseNextLink("</v2/foo/tags/list?n=100>; rel=\"prev\"")).isNull();
+    }
+
+    @Test
+    public void testRepositoryName() throws Exception {
+        assertThat(DockerRegistryClient.toRepositoryName("maven", true)).isEqualTo("library/maven");
+        assertThat(DockerRegistryClient.toRepositoryName("maven:3.5", true)).isEqualTo("library/maven");
+        assertThat(DockerRegistryClient.toRepositoryName("fabric8/maven-builder:2.2.311", true)).isEqualTo("fabric8/maven-builder");
+        assertThat(DockerRegistryClient.toRepositoryName("maven", false)).isEqualTo("maven");
+        assertThat(DockerRegistryClient.toRepositoryName("fabric8/jenkins@sha256:abc", false)).isEqualTo("fabric8/jenkins");
+    }
+
+    @Test
+    public void testDigestReferences() throws Exception {
+        assertThat(DockerRegistryClient.isDigest("sha256:6c3c624b58dbbcd3c0dd82b4c53f04194d1247c6eebdaab7c610cf7d66709b3b")).isTrue();
+        assertThat(DockerRegistryClient.isDigest("2.2.311")).isFalse();
+        assertThat(DockerRegistryClient.isDigest("latest")).isFalse();
+    }
+}
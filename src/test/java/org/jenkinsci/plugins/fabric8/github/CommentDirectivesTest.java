@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class CommentDirectivesTest {
+
+    @Test
+    public void testNewestDirectiveWins() throws Exception {
+        CommentDirectives directives = new CommentDirectives("@fabric8cd", Collections.emptyList());
+        assertThat(directives.accept("just a comment")).isFalse();
+        assertThat(directives.accept("@fabric8cd CI skip deploy=false")).isFalse();
+        assertThat(directives.accept("@fabric8cd CI skip deploy=true")).isFalse();
+        assertThat(directives.getSkipDeploy()).isFalse();
+    }
+
+    @Test
+    public void testCompletesOnceEverythingIsFound() throws Exception {
+        CommentDirectives directives = new CommentDirectives("@fabric8cd", Arrays.asList("[merge]"));
+        assertThat(directives.accept("@fabric8cd CI downstream projects [fabric8-ui=myorg, fabric8-runtime = other]")).isFalse();
+        assertThat(directives.accept(" [MERGE] ")).isFalse();
+        assertThat(directives.accept("@fabric8cd CI skip deploy=true")).isTrue();
+
+        assertThat(directives.getSkipDeploy()).isTrue();
+        assertThat(directives.hasComment("[merge]")).isTrue();
+        assertThat(directives.getDownstreamProjectOverrides()).containsEntry("fabric8-ui", "myorg").containsEntry("fabric8-runtime", "other");
+        assertThat(directives.getScannedCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testCompletesOnceTheWantedDirectivesAreFound() throws Exception {
+        CommentDirectives directives = new CommentDirectives("@fabric8cd", EnumSet.of(CommentDirectives.Directive.SKIP_DEPLOY), Collections.emptyList());
+        assertThat(directives.accept("just a comment")).isFalse();
+        assertThat(directives.accept("@fabric8cd CI skip deploy=true")).isTrue();
+        assertThat(directives.getSkipDeploy()).isTrue();
+    }
+
+    @Test
+    public void testCompletesOnceTheWantedCommentIsFoundWithoutABot() throws Exception {
+        CommentDirectives directives = new CommentDirectives(null, Arrays.asList("[merge]"));
+        assertThat(directives.getWantedDirectives()).isEmpty();
+        assertThat(directives.accept("just a comment")).isFalse();
+        assertThat(directives.accept("[merge]")).isTrue();
+    }
+
+    @Test
+    public void testIgnoresOtherBots() throws Exception {
+        CommentDirectives directives = new CommentDirectives("@fabric8cd", Collections.emptyList());
+        directives.accept("@someoneelse CI skip deploy=true");
+        assertThat(directives.getSkipDeploy()).isNull();
+        assertThat(directives.getDownstreamProjectOverrides()).isEmpty();
+    }
+
+    @Test
+    public void testParseDownstreamProjectOverrides() throws Exception {
+        assertThat(CommentDirectives.parseDownstreamProjectOverrides("CI downstream projects [a=b,invalid,c=]")).containsOnlyKeys("a");
+        assertThat(CommentDirectives.parseDownstreamProjectOverrides("CI downstream projects")).isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.github;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class OpenPullRequestIndexTest {
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testNormalizeTitle() throws Exception {
+        assertThat(OpenPullRequestIndex.normalizeTitle("  fix(version):   Update  Foo\tto 1.0 ")).isEqualTo("fix(version): update foo to 1.0");
+        assertThat(OpenPullRequestIndex.normalizeTitle(null)).isEqualTo("");
+    }
+
+    @Test
+    public void testFindByTitle() throws Exception {
+        OpenPullRequestIndex.Snapshot snapshot = createSnapshot();
+
+        assertThat(snapshot.findByTitle("Fix(version): update fabric8.version to 2.0")).isEqualTo(12);
+        assertThat(snapshot.findByTitle("fix(version): update fabric8.version")).isNull();
+        assertThat(snapshot.getNumbers()).containsExactly(12, 11, 10);
+    }
+
+    @Test
+    public void testFindByTitleContainingPrefersTheNewest() throws Exception {
+        OpenPullRequestIndex.Snapshot snapshot = createSnapshot();
+
+        assertThat(snapshot.findByTitleContaining("fix(version): update fabric8.version to 2.0")).isEqualTo(12);
+        assertThat(snapshot.findByTitleContaining("fix(version): update kubernetes-client.version to 3.0")).isEqualTo(11);
+        assertThat(snapshot.findByTitleContaining("fix(version): update docker.version to 1.0")).isNull();
+    }
+
+    protected OpenPullRequestIndex.Snapshot createSnapshot() throws Exception {
+        OpenPullRequestIndex.Page first = new OpenPullRequestIndex.Page("\"etag1\"", objectMapper.readTree("[" +
+                "{\"number\": 12, \"title\": \"fix(version): update fabric8.version to 2.0\"}," +
+                "{\"number\": 11, \"title\": \"[merge] fix(version):  update kubernetes-client.version to 3.0 and others\"}" +
+                "]"));
+        OpenPullRequestIndex.Page second = new OpenPullRequestIndex.Page("\"etag2\"", objectMapper.readTree("[" +
+                "{\"number\": 10, \"title\": \"fix(version): update kubernetes-client.version to 3.0\"}" +
+                "]"));
+        return new OpenPullRequestIndex.Snapshot(Arrays.asList(first, second));
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class MavenMetadataTest {
+
+    @Test
+    public void testParseLatestAndRelease() throws Exception {
+        MavenMetadata metadata = parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<metadata>\n" +
+                "  <groupId>io.fabric8</groupId>\n" +
+                "  <artifactId>fabric8-maven-plugin</artifactId>\n" +
+                "  <versioning>\n" +
+                "    <latest>\n" +
+                "      3.5.33\n" +
+                "    </latest>\n" +
+                "    <release>3.5.32</release>\n" +
+                "    <versions>\n" +
+                "      <version>3.5.32</version>\n" +
+                "      <version>3.5.33</version>\n" +
+                "    </versions>\n" +
+                "    <lastUpdated>20171020101010</lastUpdated>\n" +
+                "  </versioning>\n" +
+                "</metadata>\n");
+        assertThat(metadata.getLatest()).isEqualTo("3.5.33");
+        assertThat(metadata.getRelease()).isEqualTo("3.5.32");
+    }
+
+    @Test
+    public void testStopsReadingAtTheVersions() throws Exception {
+        // the document is truncated after the versions start so parsing must stop before reaching the end
+        MavenMetadata metadata = parse("<metadata><versioning><release>1.0</release><versions><version>1.0</version>");
+        assertThat(metadata.getLatest()).isNull();
+        assertThat(metadata.getRelease()).isEqualTo("1.0");
+    }
+
+    @Test
+    public void testIgnoresNestedElementsWithTheSameName() throws Exception {
+        MavenMetadata metadata = parse("<metadata><plugins><plugin><latest>bad</latest></plugin></plugins>" +
+                "<versioning><latest>2.0</latest><release>2.0</release></versioning></metadata>");
+        assertThat(metadata.getLatest()).isEqualTo("2.0");
+        assertThat(metadata.getRelease()).isEqualTo("2.0");
+    }
+
+    @Test
+    public void testMissingVersioning() throws Exception {
+        MavenMetadata metadata = parse("<metadata><groupId>io.fabric8</groupId></metadata>");
+        assertThat(metadata.getLatest()).isNull();
+        assertThat(metadata.getRelease()).isNull();
+    }
+
+    private static MavenMetadata parse(String xml) throws Exception {
+        return MavenMetadata.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ */
+public class RepositorySetTest {
+
+    @Test
+    public void testAsksTheFastestRepositoryFirst() throws Exception {
+        RepositorySet repositories = new RepositorySet("http://ordering-slow/", "http://ordering-fast", "http://ordering-new");
+        RepositorySet.getMirrorStatistics("http://ordering-slow").record(500);
+        RepositorySet.getMirrorStatistics("http://ordering-fast").record(50);
+
+        assertThat(repositories.getRepositoryUrls()).containsExactly("http://ordering-slow", "http://ordering-fast", "http://ordering-new");
+        assertThat(repositories.getRepositoryUrlsFastestFirst()).containsExactly("http://ordering-new", "http://ordering-fast", "http://ordering-slow");
+    }
+
+    @Test
+    public void testLatencyIsAMovingAverage() throws Exception {
+        RepositorySet.MirrorStatistics statistics = new RepositorySet.MirrorStatistics();
+        statistics.record(100);
+        statistics.record(200);
+
+        assertThat(statistics.getAverageLatencyMillis()).isCloseTo(130.0, within(0.001));
+        assertThat(statistics.getRequests()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOnlyDelaysMuchSlowerRepositories() throws Exception {
+        assertThat(RepositorySet.getStartDelay(50.0, 50.0)).isEqualTo(0L);
+        assertThat(RepositorySet.getStartDelay(150.0, 50.0)).isEqualTo(0L);
+        assertThat(RepositorySet.getStartDelay(151.0, 50.0)).isEqualTo(50L);
+        assertThat(RepositorySet.getStartDelay(0.0, 0.0)).isEqualTo(0L);
+    }
+
+    @Test
+    public void testFirstHitWinsAndCancelsTheOthers() throws Exception {
+        RepositorySet repositories = new RepositorySet("http://race-blocked", "http://race-hit");
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        String answer = repositories.race((url, calls) -> {
+            if (url.equals("http://race-hit")) {
+                return "hit";
+            }
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }, result -> result != null);
+
+        assertThat(answer).isEqualTo("hit");
+        assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void testUsesThePriorityOrderWithoutAHit() throws Exception {
+        RepositorySet repositories = new RepositorySet("http://miss-first", "http://miss-second");
+        RepositorySet.getMirrorStatistics("http://miss-second").record(1);
+
+        String answer = repositories.race((url, calls) -> url, result -> false);
+
+        assertThat(answer).isEqualTo("http://miss-first");
+    }
+}
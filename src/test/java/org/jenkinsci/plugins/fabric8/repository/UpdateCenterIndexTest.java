@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) Original Authors 2017
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jenkinsci.plugins.fabric8.repository;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class UpdateCenterIndexTest {
+
+    @Test
+    public void testParsePluginVersions() throws Exception {
+        Map<String, String> versions = parse("updateCenter.post(\n" +
+                "{\"connectionCheckUrl\":\"http://www.google.com/\",\n" +
+                "\"core\":{\"name\":\"core\",\"version\":\"2.73\"},\n" +
+                "\"plugins\":{\n" +
+                "  \"git\":{\"dependencies\":[{\"name\":\"scm-api\",\"optional\":false,\"version\":\"2.2.0\"}],\"name\":\"git\",\"version\":\"3.5.1\"},\n" +
+                "  \"kubernetes-pipeline-steps\":{\"labels\":[\"pipeline\"],\"version\":\"1.5\",\"name\":\"kubernetes-pipeline-steps\"}\n" +
+                "},\n" +
+                "\"updateCenterVersion\":\"1\"}\n" +
+                ");");
+
+        assertThat(versions).hasSize(2).containsEntry("git", "3.5.1").containsEntry("kubernetes-pipeline-steps", "1.5");
+    }
+
+    @Test
+    public void testCompareVersions() throws Exception {
+        assertThat(UpdateCenterIndex.compareVersions("1.2.10", "1.2.9")).isPositive();
+        assertThat(UpdateCenterIndex.compareVersions("1.2", "1.2")).isZero();
+        assertThat(UpdateCenterIndex.compareVersions("1.2", "1.2.1")).isNegative();
+    }
+
+    @Test
+    public void testQualifiedVersionsAreOlderThanTheRelease() throws Exception {
+        assertThat(UpdateCenterIndex.compareVersions("1.0-SNAPSHOT", "1.0")).isNegative();
+        assertThat(UpdateCenterIndex.compareVersions("2.0-beta-1", "2.0")).isNegative();
+        assertThat(UpdateCenterIndex.compareVersions("2.0-beta-2", "2.0-beta-10")).isNegative();
+        assertThat(UpdateCenterIndex.compareVersions("2.0.1-SNAPSHOT", "2.0")).isPositive();
+    }
+
+    private static Map<String, String> parse(String json) throws Exception {
+        return UpdateCenterIndex.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}